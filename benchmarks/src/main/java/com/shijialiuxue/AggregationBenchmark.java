@@ -0,0 +1,84 @@
+package com.shijialiuxue;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按词根聚合 reading.txt 全部不同单词:
+ * checkWordIsExistInArray 线性扫描 与 StemIndex 的对比, 以及并行求词根 + 聚合
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AggregationBenchmark {
+
+    private Map<String, Long> counts;
+    private String[] words;
+    private String[] stems;
+    private int[] nums;
+
+    @Setup
+    public void setup() throws Exception {
+        counts = BenchmarkData.readingCounts().getCounts();
+        words = new String[counts.size()];
+        stems = new String[counts.size()];
+        nums = new int[counts.size()];
+        PorterStemmer stemmer = new PorterStemmer();
+        int w = 0;
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            words[w] = entry.getKey();
+            stems[w] = stemmer.stem(entry.getKey());
+            nums[w] = entry.getValue().intValue();
+            w++;
+        }
+    }
+
+    @Benchmark
+    public ArrayList<Node> linearScan() {
+        ArrayList<Node> result = new ArrayList<>();
+        for (int w = 0; w < words.length; w++) {
+            if (!PorterStemmer.checkWordIsExistInArray(result, words[w], stems[w], nums[w])) {
+                result.add(new Node(stems[w], new NodeWord(words[w], nums[w]), nums[w]));
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public StemIndex stemIndex() {
+        StemIndex index = new StemIndex();
+        for (int w = 0; w < words.length; w++) {
+            index.add(words[w], stems[w], nums[w]);
+        }
+        return index;
+    }
+
+    /**
+     * 求词根 + 聚合, 全部核心
+     */
+    @Benchmark
+    public StemIndex parallelStemAndAggregate() {
+        ParallelStemmer stemmer = new ParallelStemmer(IrregularIndex.of(new ArrayList<>()),
+                Runtime.getRuntime().availableProcessors());
+        try {
+            return stemmer.stem(counts);
+        } finally {
+            stemmer.shutdown();
+        }
+    }
+}
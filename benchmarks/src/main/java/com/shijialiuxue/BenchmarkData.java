@@ -0,0 +1,73 @@
+package com.shijialiuxue;
+
+import com.shijialiuxue.util.FileUtils;
+import com.shijialiuxue.util.WordCounter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * benchmarks 共用的数据, 都来自 WXDemo jar 中的 resources
+ */
+public class BenchmarkData {
+
+    /**
+     * 把 resources 中的文件复制成临时文件 (读取方法都需要 File)
+     */
+    public static File resource(String name) throws IOException {
+        int dot = name.lastIndexOf('.');
+        File file = File.createTempFile(name.substring(0, dot), name.substring(dot));
+        file.deleteOnExit();
+        try (InputStream is = BenchmarkData.class.getClassLoader().getResourceAsStream(name)) {
+            if (is == null) {
+                throw new IOException("resource not found: " + name);
+            }
+            Files.copy(is, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+
+    /**
+     * reading.txt 的每一行
+     */
+    public static List<String> readingLines() throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                BenchmarkData.class.getClassLoader().getResourceAsStream("reading.txt"), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * reading.txt 中的单词 -> 出现次数
+     */
+    public static WordCounter readingCounts() throws IOException {
+        WordCounter counter = new WordCounter();
+        FileUtils.readTxt(resource("reading.txt"), counter);
+        return counter;
+    }
+
+    /**
+     * 从 reading.txt 的不同单词中循环取 n 个
+     */
+    public static String[] readingVocabulary(int n) throws IOException {
+        List<String> words = new ArrayList<>(readingCounts().getCounts().keySet());
+        String[] sample = new String[n];
+        for (int w = 0; w < n; w++) {
+            sample[w] = words.get(w % words.size());
+        }
+        return sample;
+    }
+}
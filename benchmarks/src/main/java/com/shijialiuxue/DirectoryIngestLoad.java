@@ -0,0 +1,158 @@
+package com.shijialiuxue;
+
+import com.shijialiuxue.util.CharCountMap;
+import com.shijialiuxue.util.FileUtils;
+import com.shijialiuxue.util.WordCounter;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * DirectoryIngest 的流水线效果: 分别测 读取, 合并, 求词根 三个阶段单独的耗时, 再测整个流水线.
+ * 各阶段重叠得好时, 流水线总耗时接近最慢的阶段, 而不是三者之和 (前提是 CPU 足够同时跑这些线程).
+ * 最后建 StemIndex 不能与其他阶段重叠, 单独列出
+ *
+ * 每个文件是 reading.txt 的一份拷贝, 每个单词加上这个文件自己的后缀, 所以每个文件都带来一批新单词要求词根
+ *
+ * java -cp benchmarks/target/benchmarks.jar com.shijialiuxue.DirectoryIngestLoad [文件数] [读取线程数] [求词根线程数]
+ */
+public class DirectoryIngestLoad {
+
+    private static final int WARMUP = 3;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int fileCount = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int stemmers = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+
+        Path dir = Files.createTempDirectory("ingest");
+        List<File> files = new ArrayList<>();
+        try {
+            List<String> lines = BenchmarkData.readingLines();
+            for (int f = 0; f < fileCount; f++) {
+                String suffix = "q" + (char) ('a' + f / 26 % 26) + (char) ('a' + f % 26);
+                List<String> copy = new ArrayList<>(lines.size());
+                for (String line : lines) {
+                    copy.add(line.replaceAll("([A-Za-z]+)", "$1" + suffix));
+                }
+                Path file = dir.resolve(String.format("reading%04d.txt", f));
+                Files.write(file, copy, StandardCharsets.UTF_8);
+                files.add(file.toFile());
+            }
+            WordStemmer stemmer = new WordStemmer(IrregularIndex.of(FileUtils.readIrregular(BenchmarkData.resource("irregular.xls"))));
+
+            long read = Long.MAX_VALUE;
+            long merge = Long.MAX_VALUE;
+            long stem = Long.MAX_VALUE;
+            long build = Long.MAX_VALUE;
+            long pipeline = Long.MAX_VALUE;
+            for (int r = 0; r < WARMUP + ROUNDS; r++) {
+                long start = System.nanoTime();
+                List<WordCounter> counters = readAll(files, readers);
+                long readNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                CharCountMap counts = new CharCountMap();
+                for (WordCounter counter : counters) {
+                    counts.merge(counter.getCountMap());
+                }
+                long mergeNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                String[] stems = stemAll(stemmer, counts, stemmers);
+                long stemNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                StemIndex index = new StemIndex();
+                for (int e = 0; e < counts.size(); e++) {
+                    index.add(counts.key(e), stems[e], counts.count(e));
+                }
+                long buildNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                new DirectoryIngest(stemmer, readers, stemmers, readers * 2).ingest(files);
+                long pipelineNanos = System.nanoTime() - start;
+
+                if (r >= WARMUP) {
+                    read = Math.min(read, readNanos);
+                    merge = Math.min(merge, mergeNanos);
+                    stem = Math.min(stem, stemNanos);
+                    build = Math.min(build, buildNanos);
+                    pipeline = Math.min(pipeline, pipelineNanos);
+                }
+            }
+
+            long slowest = Math.max(read, Math.max(merge, stem));
+            System.out.printf("files=%d readers=%d stemmers=%d cpus=%d%n",
+                    fileCount, readers, stemmers, Runtime.getRuntime().availableProcessors());
+            System.out.printf("read %.1f ms, merge %.1f ms, stem %.1f ms, build index %.1f ms%n",
+                    read / 1e6, merge / 1e6, stem / 1e6, build / 1e6);
+            System.out.printf("pipeline %.1f ms, slowest stage + build %.1f ms, sum %.1f ms%n",
+                    pipeline / 1e6, (slowest + build) / 1e6, (read + merge + stem + build) / 1e6);
+        } finally {
+            for (File file : files) {
+                file.delete();
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    /**
+     * 只有读取阶段: readers 个线程, 每个文件一个 WordCounter
+     */
+    private static List<WordCounter> readAll(List<File> files, int readers) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(readers);
+        try {
+            List<Future<WordCounter>> futures = new ArrayList<>();
+            for (File file : files) {
+                futures.add(pool.submit(() -> {
+                    WordCounter counter = new WordCounter();
+                    FileUtils.readDocument(file, counter);
+                    return counter;
+                }));
+            }
+            List<WordCounter> counters = new ArrayList<>();
+            for (Future<WordCounter> future : futures) {
+                counters.add(future.get());
+            }
+            return counters;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 只有求词根阶段: 所有不同单词平均分给 stemmers 个线程
+     */
+    private static String[] stemAll(WordStemmer stemmer, CharCountMap counts, int stemmers) throws Exception {
+        String[] stems = new String[counts.size()];
+        ExecutorService pool = Executors.newFixedThreadPool(stemmers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int s = 0; s < stemmers; s++) {
+                int from = counts.size() * s / stemmers;
+                int to = counts.size() * (s + 1) / stemmers;
+                futures.add(pool.submit(() -> {
+                    PorterStemmer porter = new PorterStemmer();
+                    for (int e = from; e < to; e++) {
+                        stems[e] = stemmer.stem(porter, counts.key(e));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return stems;
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
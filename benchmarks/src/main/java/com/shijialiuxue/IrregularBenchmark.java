@@ -0,0 +1,76 @@
+package com.shijialiuxue;
+
+import com.shijialiuxue.util.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * findIrregular 逐行扫描 与 IrregularIndex 的对比, 结果单位为 查询/秒
+ * loadCompiled 是读取编译文件的耗时, 单位为 微秒
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IrregularBenchmark {
+
+    private static final int WORDS = 1000;
+
+    private String[] words;
+    private List<List<String>> irregular;
+    private IrregularIndex index;
+    private File compiled;
+
+    @Setup
+    public void setup() throws Exception {
+        words = BenchmarkData.readingVocabulary(WORDS);
+        irregular = FileUtils.readIrregular(BenchmarkData.resource("irregular.xls"));
+        index = IrregularIndex.of(irregular);
+        compiled = File.createTempFile("irregular", IrregularIndex.COMPILED_SUFFIX);
+        index.writeCompiled(compiled, 0, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        compiled.delete();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WORDS)
+    public void findIrregularScan(Blackhole bh) {
+        for (String word : words) {
+            bh.consume(PorterStemmer.findIrregular(irregular, word));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public IrregularIndex loadCompiled() throws Exception {
+        return IrregularIndex.readCompiled(compiled, 0, 0);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WORDS)
+    public void findIrregularIndex(Blackhole bh) {
+        for (String word : words) {
+            bh.consume(index.find(word));
+        }
+    }
+}
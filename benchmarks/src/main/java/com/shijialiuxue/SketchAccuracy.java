@@ -0,0 +1,69 @@
+package com.shijialiuxue;
+
+import com.shijialiuxue.cache.StemCache;
+import com.shijialiuxue.util.FileUtils;
+import com.shijialiuxue.util.WordCounter;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 近似聚合在 reading.txt 上的准确度, 与精确结果对照
+ *
+ * java -cp benchmarks/target/benchmarks.jar com.shijialiuxue.SketchAccuracy [epsilon] [heavyHitters] [k]
+ */
+public class SketchAccuracy {
+
+    public static void main(String[] args) throws Exception {
+        double epsilon = args.length > 0 ? Double.parseDouble(args[0]) : 0.001;
+        int heavyHitters = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int k = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+
+        File reading = BenchmarkData.resource("reading.txt");
+        File irregular = BenchmarkData.resource("irregular.xls");
+        ParallelStemmer stemmer = new ParallelStemmer(IrregularIndex.of(FileUtils.readIrregular(irregular)), 1, new StemCache(4096));
+        try {
+            WordCounter counter = new WordCounter();
+            FileUtils.readTxt(reading, counter);
+            StemIndex exact = stemmer.stem(counter.getCountMap());
+
+            ApproximateAggregator approx = new ApproximateAggregator(stemmer.getWordStemmer(), epsilon, 0.01, heavyHitters);
+            FileUtils.readTxt(reading, approx);
+
+            //所有词根的估计误差
+            long maxError = 0;
+            double sumError = 0;
+            for (Node node : exact.toList()) {
+                long error = approx.estimateStem(node.getStem()) - node.getFrequency();
+                maxError = Math.max(maxError, error);
+                sumError += error;
+            }
+
+            //top-k 的召回率和相对误差
+            List<Node> exactTop = exact.topStems(k);
+            Set<String> approxTop = new HashSet<>();
+            for (Node node : approx.topFamilies(k)) {
+                approxTop.add(node.getStem());
+            }
+            int hits = 0;
+            double relError = 0;
+            for (Node node : exactTop) {
+                if (approxTop.contains(node.getStem())) {
+                    hits++;
+                }
+                relError += (double) (approx.estimateStem(node.getStem()) - node.getFrequency()) / node.getFrequency();
+            }
+
+            System.out.printf("tokens %d, distinct stems %d, epsilon %.4f, heavy hitters %d%n",
+                    approx.getTotal(), exact.stemCount(), epsilon, heavyHitters);
+            System.out.printf("error bound %d, max error %d, mean error %.3f%n",
+                    approx.getErrorBound(), maxError, sumError / exact.stemCount());
+            System.out.printf("top-%d recall %.3f, mean relative error %.4f%n",
+                    k, (double) hits / exactTop.size(), relError / exactTop.size());
+        } finally {
+            stemmer.shutdown();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.shijialiuxue;
+
+import com.shijialiuxue.cache.StemCache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * StemService 的压测程序, 多个客户端并发发送批量请求, 输出吞吐和 p50/p99 延迟
+ *
+ * java -cp benchmarks/target/benchmarks.jar com.shijialiuxue.StemServiceLoad [客户端数] [每个客户端请求数] [每批单词数] [url]
+ * 不给 url 时在本机启动一个服务
+ */
+public class StemServiceLoad {
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int batch = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+        StemService service = null;
+        URL url;
+        if (args.length > 3) {
+            url = new URL(args[3]);
+        } else {
+            //与 StemService.main 相同, 在创建 HttpServer 之前关掉 Nagle
+            if (System.getProperty(StemService.NODELAY_PROPERTY) == null) {
+                System.setProperty(StemService.NODELAY_PROPERTY, "true");
+            }
+            service = new StemService(IrregularIndex.of(new ArrayList<>()), new StemCache(100000), null,
+                    Runtime.getRuntime().availableProcessors());
+            InetSocketAddress address = service.start(0);
+            url = new URL("http://" + address.getHostString() + ":" + address.getPort() + "/stem");
+        }
+
+        //每个请求一批单词, 从 reading.txt 的词表中依次取
+        String[] vocabulary = BenchmarkData.readingVocabulary(batch * 97);
+        byte[][] bodies = new byte[97][];
+        for (int b = 0; b < bodies.length; b++) {
+            bodies[b] = String.join("\n", Arrays.asList(vocabulary).subList(b * batch, (b + 1) * batch))
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+
+        //预热
+        for (int r = 0; r < 500; r++) {
+            post(url, bodies[r % bodies.length]);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        List<Future<long[]>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            futures.add(pool.submit(() -> {
+                long[] latencies = new long[requests];
+                for (int r = 0; r < requests; r++) {
+                    long t = System.nanoTime();
+                    post(url, bodies[(client * 31 + r) % bodies.length]);
+                    latencies[r] = System.nanoTime() - t;
+                }
+                return latencies;
+            }));
+        }
+        long[] all = new long[clients * requests];
+        int n = 0;
+        for (Future<long[]> future : futures) {
+            long[] latencies = future.get();
+            System.arraycopy(latencies, 0, all, n, latencies.length);
+            n += latencies.length;
+        }
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+        if (service != null) {
+            service.stop();
+        }
+
+        Arrays.sort(all);
+        System.out.printf("clients=%d requests=%d batch=%d%n", clients, all.length, batch);
+        System.out.printf("throughput %.0f req/s, %.0f words/s%n",
+                all.length * 1e9 / elapsed, (double) all.length * batch * 1e9 / elapsed);
+        System.out.printf("p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                percentile(all, 0.50) / 1e6, percentile(all, 0.99) / 1e6, all[all.length - 1] / 1e6);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int i = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, i))];
+    }
+
+    private static void post(URL url, byte[] body) throws Exception {
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        conn.setRequestMethod("POST");
+        conn.setDoOutput(true);
+        conn.setFixedLengthStreamingMode(body.length);
+        try (OutputStream os = conn.getOutputStream()) {
+            os.write(body);
+        }
+        if (conn.getResponseCode() != 200) {
+            throw new IllegalStateException("HTTP " + conn.getResponseCode());
+        }
+        //读完响应, 连接才能被 keep-alive 复用
+        byte[] buf = new byte[8192];
+        try (InputStream is = conn.getInputStream()) {
+            ByteArrayOutputStream sink = new ByteArrayOutputStream();
+            int r;
+            while ((r = is.read(buf)) > 0) {
+                sink.write(buf, 0, r);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.shijialiuxue;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+
+/**
+ * PorterStemmer / TrieStemmer 吞吐量, 结果单位为 单词/秒
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StemmerBenchmark {
+
+    private static final int WORDS = 10000;
+
+    private String[] words;
+    private char[][] chars;
+    private char[] dst;
+    private PorterStemmer stemmer;
+    private TrieStemmer trieStemmer;
+
+    @Setup
+    public void setup() throws IOException {
+        words = BenchmarkData.readingVocabulary(WORDS);
+        chars = new char[WORDS][];
+        int max = 0;
+        for (int w = 0; w < WORDS; w++) {
+            chars[w] = words[w].toCharArray();
+            max = Math.max(max, chars[w].length);
+        }
+        dst = new char[max];
+        stemmer = new PorterStemmer();
+        trieStemmer = new TrieStemmer();
+    }
+
+    /**
+     * String 接口: toCharArray + add + stem + toString
+     */
+    @Benchmark
+    @OperationsPerInvocation(WORDS)
+    public void stemString(Blackhole bh) {
+        for (String word : words) {
+            bh.consume(stemmer.stem(word));
+        }
+    }
+
+    /**
+     * 调用方缓冲区接口, 不分配内存
+     */
+    @Benchmark
+    @OperationsPerInvocation(WORDS)
+    public void stemBuffer(Blackhole bh) {
+        for (char[] word : chars) {
+            bh.consume(stemmer.stem(word, 0, word.length, dst));
+        }
+    }
+
+    /**
+     * 调用方缓冲区接口, step3-step5 用后缀 trie 匹配
+     */
+    @Benchmark
+    @OperationsPerInvocation(WORDS)
+    public void stemBufferTrie(Blackhole bh) {
+        for (char[] word : chars) {
+            bh.consume(trieStemmer.stem(word, 0, word.length, dst));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.shijialiuxue.util;
+
+import com.shijialiuxue.BenchmarkData;
+import com.shijialiuxue.IrregularIndex;
+import com.shijialiuxue.Node;
+import com.shijialiuxue.ParallelStemmer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 表格读写: reading.txt 的结果写 .xls / .xlsx (对照写 .tsv / .jsonl), 读取 five1.xls 和 irregular.xls
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExcelBenchmark {
+
+    private ArrayList<Node> result;
+    private File five;
+    private File irregular;
+    private File xls;
+    private File xlsx;
+    private File tsv;
+    private File jsonl;
+
+    @Setup
+    public void setup() throws Exception {
+        ParallelStemmer stemmer = new ParallelStemmer(IrregularIndex.of(new ArrayList<>()), 1);
+        result = stemmer.stem(BenchmarkData.readingCounts().getCounts()).toList();
+        stemmer.shutdown();
+        result.sort(Comparator.comparing(Node::getStem));
+
+        five = BenchmarkData.resource("five1.xls");
+        irregular = BenchmarkData.resource("irregular.xls");
+        xls = File.createTempFile("result", ".xls");
+        xlsx = File.createTempFile("result", ".xlsx");
+        tsv = File.createTempFile("result", ".tsv");
+        jsonl = File.createTempFile("result", ".jsonl");
+    }
+
+    @TearDown
+    public void tearDown() {
+        xls.delete();
+        xlsx.delete();
+        tsv.delete();
+        jsonl.delete();
+    }
+
+    @Benchmark
+    public File makeExcel() {
+        FileUtils.makeExcel(result, xls);
+        return xls;
+    }
+
+    @Benchmark
+    public File makeXlsx() throws Exception {
+        FileUtils.makeXlsx(result, xlsx);
+        return xlsx;
+    }
+
+    @Benchmark
+    public File makeTsv() throws Exception {
+        FileUtils.makeTsv(result, tsv);
+        return tsv;
+    }
+
+    @Benchmark
+    public File makeJsonLines() throws Exception {
+        FileUtils.makeJsonLines(result, jsonl);
+        return jsonl;
+    }
+
+    @Benchmark
+    public List<String> readExcel() throws Exception {
+        return FileUtils.readExcel(five);
+    }
+
+    @Benchmark
+    public List<List<String>> readIrregular() throws Exception {
+        return FileUtils.readIrregular(irregular);
+    }
+}
@@ -0,0 +1,85 @@
+package com.shijialiuxue.util;
+
+import com.shijialiuxue.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分词: 原 sentence2words 与 Tokenizer, 以及整个 reading.txt 的读取
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenizerBenchmark {
+
+    private List<String> lines;
+    private File reading;
+    private Tokenizer tokenizer;
+
+    @Setup
+    public void setup() throws Exception {
+        lines = BenchmarkData.readingLines();
+        reading = BenchmarkData.resource("reading.txt");
+        tokenizer = new Tokenizer();
+    }
+
+    @Benchmark
+    public List<String> sentence2words() {
+        List<String> words = new ArrayList<>();
+        for (String line : lines) {
+            FileUtils.sentence2words(words, line);
+        }
+        return words;
+    }
+
+    @Benchmark
+    public List<String> tokenizerToList() {
+        List<String> words = new ArrayList<>();
+        for (String line : lines) {
+            tokenizer.tokenize(line, words);
+        }
+        return words;
+    }
+
+    /**
+     * 回调方式, 不生成 String
+     */
+    @Benchmark
+    public void tokenizerToConsumer(Blackhole bh) {
+        TokenConsumer consumer = (buf, off, len) -> bh.consume(len);
+        for (String line : lines) {
+            tokenizer.tokenize(line, consumer);
+        }
+    }
+
+    @Benchmark
+    public WordCounter readTxt() throws Exception {
+        WordCounter counter = new WordCounter();
+        FileUtils.readTxt(reading, counter);
+        return counter;
+    }
+
+    @Benchmark
+    public WordCounter readTxtMapped() throws Exception {
+        WordCounter counter = new WordCounter();
+        MappedTxtReader.read(reading, Runtime.getRuntime().availableProcessors(), 64 << 10, WordCounter::new, counter::merge);
+        return counter;
+    }
+}
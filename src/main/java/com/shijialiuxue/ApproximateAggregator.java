@@ -0,0 +1,118 @@
+package com.shijialiuxue;
+
+import com.shijialiuxue.sketch.CountMinSketch;
+import com.shijialiuxue.sketch.SpaceSaving;
+import com.shijialiuxue.util.TokenConsumer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 近似聚合, 用于连续不断的文本输入
+ * 内存固定, 与读入多少单词无关: 单词和词根各一个 Count-Min Sketch 估计次数,
+ * 单词和词根各一个 Space-Saving 跟踪高频项, 词根缓存也是有界的 (由 WordStemmer 提供)
+ *
+ * 高频词根的频率取 Space-Saving 上界和 Count-Min 估计中较小的一个, 不会小于真实值;
+ * 超过 总数 / heavyHitters 的词根一定在结果中
+ *
+ * 非线程安全
+ */
+public class ApproximateAggregator implements TokenConsumer {
+
+    private final WordStemmer stemmer;
+    private final PorterStemmer porter = new PorterStemmer();
+
+    private final CountMinSketch wordCounts;
+    private final CountMinSketch stemCounts;
+    private final SpaceSaving topWords;
+    private final SpaceSaving topStems;
+
+    /**
+     * @param stemmer 求词根, 建议带有 StemCache 以免每个单词都重新计算
+     * @param epsilon Count-Min 相对总数的误差
+     * @param delta Count-Min 超过误差的概率
+     * @param heavyHitters 跟踪的高频词根个数, 高频单词跟踪它的4倍
+     */
+    public ApproximateAggregator(WordStemmer stemmer, double epsilon, double delta, int heavyHitters) {
+        this.stemmer = stemmer;
+        this.wordCounts = new CountMinSketch(epsilon, delta);
+        this.stemCounts = new CountMinSketch(epsilon, delta);
+        this.topWords = new SpaceSaving(heavyHitters * 4);
+        this.topStems = new SpaceSaving(heavyHitters);
+    }
+
+    @Override
+    public void accept(char[] buf, int off, int len) {
+        String word = new String(buf, off, len);
+        String stem = stemmer.stem(porter, word);
+        wordCounts.add(word, 1);
+        stemCounts.add(stem, 1);
+        topWords.offer(word, 1);
+        SpaceSaving.Counter counter = topStems.offer(stem, 1);
+        if (counter.getLabel() == null) {
+            //记下一个属于这个词根的单词, 单词都没有被跟踪到时用它展示
+            counter.setLabel(word);
+        }
+    }
+
+    /**
+     * 估计的词根次数
+     */
+    public long estimateStem(String stem) {
+        SpaceSaving.Counter counter = topStems.get(stem);
+        long estimate = stemCounts.estimate(stem);
+        return counter == null ? estimate : Math.min(estimate, counter.getCount());
+    }
+
+    /**
+     * 估计的单词次数
+     */
+    public long estimateWord(String word) {
+        SpaceSaving.Counter counter = topWords.get(word);
+        long estimate = wordCounts.estimate(word);
+        return counter == null ? estimate : Math.min(estimate, counter.getCount());
+    }
+
+    /**
+     * 频率最高的 k 个词根节点, 从高到低
+     * 节点下只有被跟踪到的高频单词, 频率都是估计值 (上界)
+     */
+    public List<Node> topFamilies(int k) {
+        List<SpaceSaving.Counter> stems = topStems.top(topStems.getCapacity());
+        Map<String, List<NodeWord>> words = new HashMap<>();
+        for (SpaceSaving.Counter counter : topWords.top(topWords.getCapacity())) {
+            String stem = stemmer.stem(porter, counter.getKey());
+            words.computeIfAbsent(stem, s -> new ArrayList<>())
+                    .add(new NodeWord(counter.getKey(), (int) estimateWord(counter.getKey())));
+        }
+        List<Node> nodes = new ArrayList<>(stems.size());
+        for (SpaceSaving.Counter counter : stems) {
+            List<NodeWord> family = words.get(counter.getKey());
+            if (family == null) {
+                family = new ArrayList<>();
+                family.add(new NodeWord(counter.getLabel(), (int) estimateWord(counter.getLabel())));
+            }
+            family.sort(TopK.WORD_ORDER);
+            Node node = new Node(counter.getKey(), family.get(0), (int) estimateStem(counter.getKey()));
+            node.getWordList().addAll(family.subList(1, family.size()));
+            nodes.add(node);
+        }
+        return TopK.topStems(nodes, k);
+    }
+
+    /**
+     * Count-Min 的误差上界 (次数), 以至少 1 - delta 的概率成立
+     */
+    public long getErrorBound() {
+        return (long) Math.ceil(stemCounts.getEpsilon() * stemCounts.getTotal());
+    }
+
+    /**
+     * 读入的单词总数
+     */
+    public long getTotal() {
+        return stemCounts.getTotal();
+    }
+}
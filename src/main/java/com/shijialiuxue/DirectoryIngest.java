@@ -0,0 +1,285 @@
+package com.shijialiuxue;
+
+import com.shijialiuxue.util.CharCountMap;
+import com.shijialiuxue.util.FileUtils;
+import com.shijialiuxue.util.WordCounter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 读取整个目录下的 .txt/.xls/.xlsx 文件
+ *
+ * 三个阶段通过有界队列连接, I/O 和 CPU 同时进行:
+ * 读取线程  每个文件读取+分词, 计入这个文件自己的 WordCounter
+ * 合并      (调用线程) 按文件顺序把计数合并到总表, 本文件带来的新单词作为一批交给求词根线程
+ * 求词根    对每批新单词求词根
+ * 同时在处理中的文件数不超过 window, 合并跟不上时读取线程停下等待 (背压), 内存有界
+ *
+ * 按文件顺序合并, 结果与把这些文件依次读进一个 WordCounter 再用 ParallelStemmer 聚合完全相同
+ *
+ * 读取失败 (包括 OutOfMemoryError 这样的 Error) 会交给合并线程抛出; 合并线程等待队列时定期检查求词根线程,
+ * 求词根线程失败时直接抛出, 不会一直阻塞
+ */
+public class DirectoryIngest {
+
+    /**
+     * 默认匹配的文件
+     */
+    public static final String DEFAULT_GLOB = "**.{txt,xls,xlsx}";
+
+    /**
+     * 合并线程等待队列时, 每隔这么久检查一次求词根线程
+     */
+    private static final long POLL_MILLIS = 100;
+
+    private final WordStemmer stemmer;
+    private final int readers;
+    private final int stemmers;
+    private final int window;
+
+    /**
+     * @param stemmer 求词根, 所有求词根线程共用
+     * @param readers 读取线程数
+     * @param stemmers 求词根线程数
+     * @param window 同时在处理中的文件数上限
+     */
+    public DirectoryIngest(WordStemmer stemmer, int readers, int stemmers, int window) {
+        this.stemmer = stemmer;
+        this.readers = readers;
+        this.stemmers = stemmers;
+        this.window = window;
+    }
+
+    /**
+     * 目录下 (含子目录) 相对路径匹配 glob 的文件, 按路径排序
+     */
+    public static List<File> listFiles(Path root, String glob) throws IOException {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(path -> matcher.matches(root.relativize(path)))
+                    .sorted()
+                    .map(Path::toFile)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * 读取文件并聚合
+     */
+    public StemIndex ingest(List<File> files) throws Exception {
+        CharCountMap counts = new CharCountMap();
+        Semaphore inFlight = new Semaphore(window);
+        BlockingQueue<Parsed> parsed = new ArrayBlockingQueue<>(window);
+        BlockingQueue<Batch> batches = new ArrayBlockingQueue<>(stemmers * 2);
+        ConcurrentLinkedQueue<Batch> stemmed = new ConcurrentLinkedQueue<>();
+
+        ExecutorService readPool = Executors.newFixedThreadPool(readers);
+        ExecutorService stemPool = Executors.newFixedThreadPool(stemmers);
+        Thread feeder = new Thread(() -> {
+            try {
+                for (int f = 0; f < files.size(); f++) {
+                    inFlight.acquire();
+                    int index = f;
+                    readPool.execute(() -> parsed.add(read(index, files.get(index))));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "directory-ingest-feeder");
+        try {
+            List<Future<?>> stemTasks = new ArrayList<>();
+            for (int s = 0; s < stemmers; s++) {
+                stemTasks.add(stemPool.submit(() -> {
+                    PorterStemmer porter = new PorterStemmer();
+                    for (Batch batch = batches.take(); batch != Batch.END; batch = batches.take()) {
+                        batch.stems = new String[batch.words.length];
+                        for (int w = 0; w < batch.words.length; w++) {
+                            batch.stems[w] = stemmer.stem(porter, batch.words[w]);
+                        }
+                        stemmed.add(batch);
+                    }
+                    return null;
+                }));
+            }
+            feeder.start();
+
+            //按文件顺序合并, 先完成的文件等待前面的文件
+            Map<Integer, WordCounter> done = new HashMap<>();
+            int next = 0;
+            while (next < files.size()) {
+                Parsed result = takeParsed(parsed, stemTasks);
+                if (result.error != null) {
+                    throw new IOException("cannot read " + files.get(result.index), result.error);
+                }
+                done.put(result.index, result.counter);
+                for (WordCounter counter = done.remove(next); counter != null; counter = done.remove(next)) {
+                    int before = counts.size();
+                    counts.merge(counter.getCountMap());
+                    if (counts.size() > before) {
+                        String[] words = new String[counts.size() - before];
+                        for (int e = before; e < counts.size(); e++) {
+                            words[e - before] = counts.key(e);
+                        }
+                        putBatch(batches, new Batch(before, words), stemTasks);
+                    }
+                    next++;
+                    inFlight.release();
+                }
+            }
+            for (int s = 0; s < stemmers; s++) {
+                putBatch(batches, Batch.END, stemTasks);
+            }
+            for (Future<?> task : stemTasks) {
+                try {
+                    task.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("stemming failed", e.getCause());
+                }
+            }
+        } finally {
+            feeder.interrupt();
+            readPool.shutdownNow();
+            stemPool.shutdownNow();
+        }
+
+        //按条目顺序聚合, 与 ParallelStemmer 按段顺序合并的结果相同
+        String[] stems = new String[counts.size()];
+        for (Batch batch : stemmed) {
+            System.arraycopy(batch.stems, 0, stems, batch.first, batch.stems.length);
+        }
+        StemIndex index = new StemIndex();
+        for (int e = 0; e < counts.size(); e++) {
+            index.add(counts.key(e), stems[e], counts.count(e));
+        }
+        return index;
+    }
+
+    /**
+     * 读取一个文件, 任何失败都作为结果返回, 保证合并线程一定能收到这个文件的结果
+     */
+    private static Parsed read(int index, File file) {
+        try {
+            WordCounter counter = new WordCounter();
+            FileUtils.readDocument(file, counter);
+            return new Parsed(index, counter, null);
+        } catch (Throwable e) {
+            return new Parsed(index, null, e);
+        }
+    }
+
+    /**
+     * 等待下一个读取结果, 等待期间检查求词根线程
+     */
+    private static Parsed takeParsed(BlockingQueue<Parsed> parsed, List<Future<?>> stemTasks) throws InterruptedException {
+        Parsed result;
+        while ((result = parsed.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+            checkStemmers(stemTasks);
+        }
+        return result;
+    }
+
+    /**
+     * 把一批单词交给求词根线程, 队列满时检查求词根线程
+     */
+    private static void putBatch(BlockingQueue<Batch> batches, Batch batch, List<Future<?>> stemTasks) throws InterruptedException {
+        while (!batches.offer(batch, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            checkStemmers(stemTasks);
+        }
+    }
+
+    /**
+     * 有求词根线程异常结束时抛出异常
+     */
+    private static void checkStemmers(List<Future<?>> stemTasks) throws InterruptedException {
+        for (Future<?> task : stemTasks) {
+            if (task.isDone()) {
+                try {
+                    task.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("stemming failed", e.getCause());
+                }
+            }
+        }
+    }
+
+    /**
+     * 一个文件的读取结果
+     */
+    private static class Parsed {
+        final int index;
+        final WordCounter counter;
+        final Throwable error;
+
+        Parsed(int index, WordCounter counter, Throwable error) {
+            this.index = index;
+            this.counter = counter;
+            this.error = error;
+        }
+    }
+
+    /**
+     * 一批新单词, 条目编号从 first 开始连续
+     */
+    private static class Batch {
+        static final Batch END = new Batch(-1, new String[0]);
+
+        final int first;
+        final String[] words;
+        String[] stems;
+
+        Batch(int first, String[] words) {
+            this.first = first;
+            this.words = words;
+        }
+    }
+
+    /**
+     * 参数: 目录 输出的结果(.xls/.xlsx/.tsv/.jsonl) [glob, 默认 **.{txt,xls,xlsx}]
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("usage: DirectoryIngest <directory> <result .xls/.xlsx/.tsv/.jsonl> [glob]");
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        Path root = new File(args[0]).toPath();
+        File output = new File(args[1]);
+        List<File> files = listFiles(root, args.length > 2 ? args[2] : DEFAULT_GLOB);
+        //listFiles 返回的路径与 args[1] 写法不同 (相对路径, ./, ..), 比较规范化后的绝对路径
+        Path outputPath = output.getAbsoluteFile().toPath().normalize();
+        files.removeIf(f -> f.getAbsoluteFile().toPath().normalize().equals(outputPath));
+        System.out.println("files " + files.size());
+
+        File irregularFile = new File(DirectoryIngest.class.getClassLoader().getResource("irregular.xls").getPath());
+        WordStemmer stemmer = new WordStemmer(IrregularIndex.load(irregularFile));
+        int nproc = Runtime.getRuntime().availableProcessors();
+        StemIndex index = new DirectoryIngest(stemmer, Math.max(2, nproc / 2), Math.max(1, nproc / 2), nproc * 2).ingest(files);
+
+        ArrayList<Node> result = index.toList();
+        result.sort(Comparator.comparing(Node::getStem));
+        System.out.println("result " + FileUtils.writeResult(result, output));
+        System.out.println("used seconds " + (System.currentTimeMillis() - startTime) / 1000);
+    }
+}
@@ -0,0 +1,171 @@
+package com.shijialiuxue;
+
+import com.shijialiuxue.util.CharCountMap;
+import com.shijialiuxue.util.ExcelEventReader;
+import com.shijialiuxue.util.Tokenizer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 按文档 (段落) 建立的词根索引
+ * 每篇文档先单独计数, 再把 (文档编号, 次数) 追加到所在词根节点的倒排表中,
+ * 文档编号按加入顺序从0递增, 倒排表按差值压缩
+ *
+ * 在此基础上提供 文档频率 和 TF-IDF 查询, 用于按词根在多少篇文章中出现来排序
+ *
+ * 非线程安全
+ */
+public class DocumentIndex {
+
+    private final WordStemmer stemmer;
+    private final PorterStemmer porter = new PorterStemmer();
+    private final Tokenizer tokenizer = new Tokenizer();
+
+    private final StemIndex index = new StemIndex();
+
+    /**
+     * 当前文档的计数, 每篇文档重复使用
+     */
+    private final CharCountMap docCounts = new CharCountMap();
+
+    private int documentCount;
+
+    /**
+     * @param stemmer 求词根
+     */
+    public DocumentIndex(WordStemmer stemmer) {
+        this.stemmer = stemmer;
+    }
+
+    /**
+     * 加入一篇文档
+     * @return 文档编号
+     */
+    public int addDocument(CharSequence text) {
+        docCounts.clear();
+        tokenizer.tokenize(text, docCounts);
+        int doc = documentCount++;
+        for (int e = 0; e < docCounts.size(); e++) {
+            String word = docCounts.key(e);
+            Node node = index.getNodeByWord(word);
+            String stem = node != null ? node.getStem() : stemmer.stem(porter, word);
+            int num = docCounts.count(e);
+            index.add(word, stem, num);
+            if (node == null) {
+                node = index.getNode(stem);
+            }
+            node.addPosting(doc, num);
+        }
+        return doc;
+    }
+
+    /**
+     * TXT 中每个非空行作为一篇文档
+     */
+    public void addTxt(File file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    addDocument(line);
+                }
+            }
+        }
+    }
+
+    /**
+     * 表格第一个sheet中每个非空单元格作为一篇文档
+     */
+    public void addExcel(File file) throws IOException {
+        ExcelEventReader.read(file, (row, col, text) -> {
+            if (!text.trim().isEmpty()) {
+                addDocument(text);
+            }
+        });
+    }
+
+    /**
+     * 文档总数
+     */
+    public int documentCount() {
+        return documentCount;
+    }
+
+    /**
+     * 聚合结果, 每个词根节点带有倒排表
+     */
+    public StemIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * 词根出现过的文档数, 不存在返回0
+     */
+    public int documentFrequency(String stem) {
+        Node node = index.getNode(stem);
+        return node == null ? 0 : node.getPostings().docFrequency();
+    }
+
+    /**
+     * 逆文档频率 log(N / df), 词根不存在返回0
+     */
+    public double idf(String stem) {
+        int df = documentFrequency(stem);
+        return df == 0 ? 0 : Math.log((double) documentCount / df);
+    }
+
+    /**
+     * 词根在文档 doc 中的 TF-IDF, tf 为出现次数
+     */
+    public double tfIdf(String stem, int doc) {
+        Node node = index.getNode(stem);
+        if (node == null) {
+            return 0;
+        }
+        return node.getPostings().count(doc) * idf(stem);
+    }
+
+    /**
+     * 出现在最多文档中的 k 个词根, 从多到少, 文档数相同按总频率
+     */
+    public List<Node> topByDocumentFrequency(int k) {
+        Comparator<Node> order = Comparator.comparingInt((Node node) -> node.getPostings().docFrequency())
+                .reversed()
+                .thenComparing(TopK.STEM_ORDER);
+        return TopK.top(index.toList(), k, order);
+    }
+
+    /**
+     * 文档 doc 中 TF-IDF 最高的 k 个词根, 从高到低
+     */
+    public List<Node> topByTfIdf(int doc, int k) {
+        List<Node> inDoc = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        for (Node node : index.toList()) {
+            int tf = node.getPostings().count(doc);
+            if (tf > 0) {
+                inDoc.add(node);
+                scores.add(tf * idf(node.getStem()));
+            }
+        }
+        List<Integer> ids = new ArrayList<>(inDoc.size());
+        for (int i = 0; i < inDoc.size(); i++) {
+            ids.add(i);
+        }
+        Comparator<Integer> order = Comparator.comparingDouble((Integer i) -> scores.get(i))
+                .reversed()
+                .thenComparing(i -> inDoc.get(i).getStem());
+        List<Node> result = new ArrayList<>();
+        for (int i : TopK.top(ids, k, order)) {
+            result.add(inDoc.get(i));
+        }
+        return result;
+    }
+}
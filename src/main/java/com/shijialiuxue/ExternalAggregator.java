@@ -0,0 +1,388 @@
+package com.shijialiuxue;
+
+import com.shijialiuxue.util.CharCountMap;
+import com.shijialiuxue.util.FileUtils;
+import com.shijialiuxue.util.ResultWriter;
+import com.shijialiuxue.util.TokenConsumer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * 外存聚合, 用于内存放不下全部不同单词的语料
+ *
+ * 第一遍: 单词计数放在 CharCountMap 中, 估算的内存超过预算时按单词排序写成一个临时文件 (run) 并清空;
+ * 读完后对所有 run 做 k 路归并, 相同单词的次数相加, 求词根后得到 (词根, 首次出现位置, 单词, 次数),
+ * 同样按预算排序后写成第二批 run;
+ * 第二遍: 按 (词根, 首次出现位置) 归并, 相邻的同一词根就是一个词根节点, 按词根顺序依次交给调用方
+ *
+ * 首次出现位置 = (run 编号, run 内条目编号), 与内存中 CharCountMap 的条目顺序一致,
+ * 所以每个词根下单词的顺序和频率与 ParallelStemmer 的结果按词根排序后完全相同
+ *
+ * 非线程安全
+ */
+public class ExternalAggregator implements TokenConsumer, Closeable {
+
+    /**
+     * 每个不同单词在 CharCountMap 中除字符外大约占用的字节数
+     */
+    private static final int ENTRY_OVERHEAD = 40;
+
+    /**
+     * 第二批 run 中每条记录除字符外大约占用的字节数
+     */
+    private static final int FAMILY_OVERHEAD = 80;
+
+    private final WordStemmer stemmer;
+    private final PorterStemmer porter = new PorterStemmer();
+    private final long memoryBudget;
+    private final File tmpDir;
+
+    private final CharCountMap counts = new CharCountMap();
+    private long countsChars;
+
+    private final List<File> wordRuns = new ArrayList<>();
+
+    /**
+     * @param stemmer 归并时对每个不同单词求词根
+     * @param memoryBudget 内存中计数和排序允许使用的字节数 (估算值)
+     * @param tmpDir 临时文件目录, 为null时使用系统临时目录
+     */
+    public ExternalAggregator(WordStemmer stemmer, long memoryBudget, File tmpDir) {
+        this.stemmer = stemmer;
+        this.memoryBudget = memoryBudget;
+        this.tmpDir = tmpDir;
+    }
+
+    @Override
+    public void accept(char[] buf, int off, int len) {
+        add(buf, off, len, 1);
+    }
+
+    /**
+     * 单词出现次数加 num, 超过预算时写出一个 run
+     */
+    public void add(char[] buf, int off, int len, int num) {
+        int before = counts.size();
+        counts.add(buf, off, len, num);
+        if (counts.size() != before) {
+            countsChars += len;
+            if (counts.size() * (long) ENTRY_OVERHEAD + countsChars * 2 > memoryBudget) {
+                spillWords();
+            }
+        }
+    }
+
+    /**
+     * 已经写出的第一批 run 个数
+     */
+    public int getWordRunCount() {
+        return wordRuns.size();
+    }
+
+    /**
+     * 归并所有 run, 按词根顺序依次输出词根节点
+     */
+    public void aggregate(Consumer<Node> sink) throws IOException {
+        if (counts.size() > 0) {
+            spillWords();
+        }
+        List<File> familyRuns = new ArrayList<>();
+        try {
+            //第一遍归并: 单词 -> (词根, 首次出现位置, 单词, 次数)
+            List<FamilyRecord> buffer = new ArrayList<>();
+            long[] bufferBytes = {0};
+            mergeWords(record -> {
+                String stem = stemmer.stem(porter, record.word);
+                buffer.add(new FamilyRecord(stem, record.firstSeen, record.word, record.count));
+                bufferBytes[0] += FAMILY_OVERHEAD + (stem.length() + record.word.length()) * 2L;
+                if (bufferBytes[0] > memoryBudget) {
+                    familyRuns.add(spillFamilies(buffer));
+                    buffer.clear();
+                    bufferBytes[0] = 0;
+                }
+            });
+            if (!buffer.isEmpty()) {
+                familyRuns.add(spillFamilies(buffer));
+                buffer.clear();
+            }
+
+            //第二遍归并: 相邻的同一词根合成一个节点
+            Node[] current = {null};
+            mergeFamilies(familyRuns, record -> {
+                NodeWord word = new NodeWord(record.word, record.count);
+                if (current[0] != null && current[0].getStem().equals(record.stem)) {
+                    current[0].getWordList().add(word);
+                    current[0].increment(record.count);
+                } else {
+                    if (current[0] != null) {
+                        sink.accept(current[0]);
+                    }
+                    current[0] = new Node(record.stem, word, record.count);
+                }
+            });
+            if (current[0] != null) {
+                sink.accept(current[0]);
+            }
+        } finally {
+            for (File run : familyRuns) {
+                run.delete();
+            }
+            close();
+        }
+    }
+
+    /**
+     * 归并后收集成 list (按词根排序), 主要用于测试; 结果大时应直接用 aggregate(sink)
+     */
+    public List<Node> toList() throws IOException {
+        List<Node> result = new ArrayList<>();
+        aggregate(result::add);
+        return result;
+    }
+
+    /**
+     * 删除还没有归并的临时文件
+     */
+    @Override
+    public void close() {
+        for (File run : wordRuns) {
+            run.delete();
+        }
+        wordRuns.clear();
+    }
+
+    /**
+     * 当前计数按单词排序写成一个 run: 单词, 次数, 首次出现位置
+     */
+    private void spillWords() {
+        int runNo = wordRuns.size();
+        int size = counts.size();
+        String[] words = new String[size];
+        Integer[] order = new Integer[size];
+        for (int e = 0; e < size; e++) {
+            words[e] = counts.key(e);
+            order[e] = e;
+        }
+        Arrays.sort(order, Comparator.comparing(e -> words[e]));
+        try {
+            File run = File.createTempFile("words", ".run", tmpDir);
+            wordRuns.add(run);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), 1 << 16))) {
+                for (int e : order) {
+                    out.writeUTF(words[e]);
+                    out.writeInt(counts.count(e));
+                    out.writeLong(((long) runNo << 32) | e);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        counts.clear();
+        countsChars = 0;
+    }
+
+    /**
+     * 按 词根, 首次出现位置 排序后写成一个 run
+     */
+    private File spillFamilies(List<FamilyRecord> buffer) {
+        Collections.sort(buffer);
+        try {
+            File run = File.createTempFile("families", ".run", tmpDir);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), 1 << 16))) {
+                for (FamilyRecord record : buffer) {
+                    out.writeUTF(record.stem);
+                    out.writeLong(record.firstSeen);
+                    out.writeUTF(record.word);
+                    out.writeInt(record.count);
+                }
+            }
+            return run;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * k 路归并第一批 run, 相同单词合并: 次数相加, 首次出现位置取最早
+     */
+    private void mergeWords(Consumer<WordRecord> sink) throws IOException {
+        PriorityQueue<RunReader<WordRecord>> heap = new PriorityQueue<>(Comparator.comparing(r -> r.head.word));
+        List<RunReader<WordRecord>> readers = new ArrayList<>();
+        try {
+            for (File run : wordRuns) {
+                RunReader<WordRecord> reader = new RunReader<>(run,
+                        in -> new WordRecord(in.readUTF(), in.readInt(), in.readLong()));
+                readers.add(reader);
+                if (reader.advance()) {
+                    heap.add(reader);
+                }
+            }
+            WordRecord pending = null;
+            while (!heap.isEmpty()) {
+                RunReader<WordRecord> reader = heap.poll();
+                WordRecord record = reader.head;
+                if (pending != null && pending.word.equals(record.word)) {
+                    pending.count += record.count;
+                    pending.firstSeen = Math.min(pending.firstSeen, record.firstSeen);
+                } else {
+                    if (pending != null) {
+                        sink.accept(pending);
+                    }
+                    pending = record;
+                }
+                if (reader.advance()) {
+                    heap.add(reader);
+                }
+            }
+            if (pending != null) {
+                sink.accept(pending);
+            }
+        } finally {
+            for (RunReader<WordRecord> reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    private void mergeFamilies(List<File> runs, Consumer<FamilyRecord> sink) throws IOException {
+        PriorityQueue<RunReader<FamilyRecord>> heap = new PriorityQueue<>(Comparator.comparing(r -> r.head));
+        List<RunReader<FamilyRecord>> readers = new ArrayList<>();
+        try {
+            for (File run : runs) {
+                RunReader<FamilyRecord> reader = new RunReader<>(run,
+                        in -> new FamilyRecord(in.readUTF(), in.readLong(), in.readUTF(), in.readInt()));
+                readers.add(reader);
+                if (reader.advance()) {
+                    heap.add(reader);
+                }
+            }
+            while (!heap.isEmpty()) {
+                RunReader<FamilyRecord> reader = heap.poll();
+                sink.accept(reader.head);
+                if (reader.advance()) {
+                    heap.add(reader);
+                }
+            }
+        } finally {
+            for (RunReader<FamilyRecord> reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    private static class WordRecord {
+        final String word;
+        int count;
+        long firstSeen;
+
+        WordRecord(String word, int count, long firstSeen) {
+            this.word = word;
+            this.count = count;
+            this.firstSeen = firstSeen;
+        }
+    }
+
+    /**
+     * 按 词根, 首次出现位置 排序
+     */
+    private static class FamilyRecord implements Comparable<FamilyRecord> {
+        final String stem;
+        final long firstSeen;
+        final String word;
+        final int count;
+
+        FamilyRecord(String stem, long firstSeen, String word, int count) {
+            this.stem = stem;
+            this.firstSeen = firstSeen;
+            this.word = word;
+            this.count = count;
+        }
+
+        @Override
+        public int compareTo(FamilyRecord other) {
+            int cmp = stem.compareTo(other.stem);
+            return cmp != 0 ? cmp : Long.compare(firstSeen, other.firstSeen);
+        }
+    }
+
+    private interface RecordDecoder<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    /**
+     * 顺序读一个 run, head 是当前记录
+     */
+    private static class RunReader<T> implements Closeable {
+        private final DataInputStream in;
+        private final RecordDecoder<T> decoder;
+        T head;
+
+        RunReader(File run, RecordDecoder<T> decoder) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(run), 1 << 16));
+            this.decoder = decoder;
+        }
+
+        boolean advance() throws IOException {
+            try {
+                head = decoder.read(in);
+                return true;
+            } catch (EOFException e) {
+                head = null;
+                return false;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * 参数: 内存预算(MB) 输出的结果(.xlsx/.tsv/.jsonl) 文档...
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("usage: ExternalAggregator <memory budget MB> <result .xlsx/.tsv/.jsonl> <document>...");
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        long budget = Long.parseLong(args[0]) << 20;
+        File output = new File(args[1]);
+
+        File irregularFile = new File(ExternalAggregator.class.getClassLoader().getResource("irregular.xls").getPath());
+        WordStemmer stemmer = new WordStemmer(IrregularIndex.load(irregularFile));
+        try (ExternalAggregator aggregator = new ExternalAggregator(stemmer, budget, null);
+             ResultWriter writer = FileUtils.openResultWriter(output)) {
+            for (String path : Arrays.asList(args).subList(2, args.length)) {
+                FileUtils.readDocument(new File(path), aggregator);
+            }
+            System.out.println("word runs " + aggregator.getWordRunCount());
+            aggregator.aggregate(node -> {
+                try {
+                    writer.write(node);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        System.out.println("used seconds " + (System.currentTimeMillis() - startTime) / 1000);
+    }
+}
@@ -0,0 +1,102 @@
+package com.shijialiuxue;
+
+import com.shijialiuxue.util.CharCountMap;
+import com.shijialiuxue.util.FileUtils;
+import com.shijialiuxue.util.WordCounter;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 增量读入新文档
+ * 读取保存的聚合结果, 只读入新文档, 已经出现过的单词直接累加到原来的词根下,
+ * 只有新单词需要求词根, 耗时只与新文档有关
+ *
+ * 结果与把旧文档和新文档一起重新计算相同
+ */
+public class IncrementalIngest {
+
+    private final ParallelStemmer stemmer;
+
+    public IncrementalIngest(ParallelStemmer stemmer) {
+        this.stemmer = stemmer;
+    }
+
+    /**
+     * 把新文档合并到 index 中
+     * @param index 已有的聚合结果, 会被修改
+     * @param documents 新文档, .txt/.xls/.xlsx
+     * @return index
+     */
+    public StemIndex ingest(StemIndex index, List<File> documents) throws Exception {
+        WordCounter counter = new WordCounter();
+        for (File document : documents) {
+            FileUtils.readDocument(document, counter);
+        }
+        return ingest(index, counter.getCountMap());
+    }
+
+    /**
+     * 把新的词频合并到 index 中
+     * @param index 已有的聚合结果, 会被修改
+     * @param counts 新文档的 单词 -> 出现次数
+     * @return index
+     */
+    public StemIndex ingest(StemIndex index, CharCountMap counts) {
+        //已经有的单词直接累加, 新单词留下来求词根
+        CharCountMap fresh = new CharCountMap();
+        for (int e = 0; e < counts.size(); e++) {
+            String word = counts.key(e);
+            Node node = index.getNodeByWord(word);
+            if (node != null) {
+                index.add(word, node.getStem(), counts.count(e));
+            } else {
+                fresh.add(word, counts.count(e));
+            }
+        }
+        if (fresh.size() > 0) {
+            index.merge(stemmer.stem(fresh));
+        }
+        return index;
+    }
+
+    /**
+     * 参数: 保存结果的文件 输出的结果(.xls/.xlsx/.tsv/.jsonl) 新文档...
+     * 保存结果的文件不存在时从空结果开始
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("usage: IncrementalIngest <state file> <result .xls/.xlsx/.tsv/.jsonl> <document>...");
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        File state = new File(args[0]);
+        File output = new File(args[1]);
+        List<File> documents = new ArrayList<>();
+        for (String path : Arrays.asList(args).subList(2, args.length)) {
+            documents.add(new File(path));
+        }
+
+        //读取存不规则单词的表格
+        File irregularFile = new File(IncrementalIngest.class.getClassLoader().getResource("irregular.xls").getPath());
+        IrregularIndex irregular = IrregularIndex.load(irregularFile);
+
+        StemIndex index = state.exists() ? StemIndex.load(state) : new StemIndex();
+        ParallelStemmer stemmer = new ParallelStemmer(irregular, Runtime.getRuntime().availableProcessors());
+        try {
+            new IncrementalIngest(stemmer).ingest(index, documents);
+        } finally {
+            stemmer.shutdown();
+        }
+        index.save(state);
+
+        ArrayList<Node> result = index.toList();
+        result.sort(Comparator.comparing(Node::getStem));
+        System.out.println("result " + FileUtils.writeResult(result, output));
+
+        System.out.println("used seconds " + (System.currentTimeMillis() - startTime) / 1000);
+    }
+}
@@ -0,0 +1,307 @@
+package com.shijialiuxue;
+
+import com.shijialiuxue.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 不规则变化 倒排索引
+ * 每一种变形 (abode, abided, arose ...) -> 动词原形 (每一行第0个)
+ * 一个变形出现在多行时, 取第一次出现的行, 与原来逐行 contains 的结果一致
+ *
+ * 索引是一块紧凑的数据, 内存中和编译文件中的布局相同, 读取编译文件时整块读入直接使用:
+ * 变形个数, 字符总数, hash 槽数, 每个变形在字符区的起止位置 int[n+1], 每个变形的原形编号 int[n],
+ * 开放寻址的 hash 槽 int[槽数] (存 变形编号+1, 0 表示空), 按变形排序拼接的字符 char[].
+ * 原形本身也是一个变形, 原形编号就是它在排序中的位置
+ */
+public class IrregularIndex {
+
+    /**
+     * 编译后文件的开头标记和版本
+     */
+    private static final int MAGIC = 0x57584952;
+    private static final int VERSION = 2;
+
+    /**
+     * 开头标记, 版本, 表格大小, 表格修改时间
+     */
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8;
+
+    /**
+     * hash 槽数至少是变形个数的两倍, 且不小于这个值
+     */
+    private static final int MIN_TABLE_SIZE = 16;
+
+    /**
+     * 编译后文件的扩展名, 放在表格旁边, 如 irregular.xls.idx
+     */
+    public static final String COMPILED_SUFFIX = ".idx";
+
+    /**
+     * 整块数据, 写编译文件时原样写出
+     */
+    private final ByteBuffer data;
+    private final IntBuffer offsets;
+    private final IntBuffer bases;
+    private final IntBuffer slots;
+    private final CharBuffer chars;
+
+    /**
+     * 已经解码的原形, 按需填充
+     */
+    private final String[] baseStrings;
+
+    private IrregularIndex(ByteBuffer data) throws IOException {
+        this.data = data;
+        ByteBuffer buf = data.duplicate();
+        int count = buf.getInt();
+        int charCount = buf.getInt();
+        int tableSize = buf.getInt();
+        if (count < 0 || charCount < 0 || tableSize <= count || Integer.bitCount(tableSize) != 1
+                || buf.remaining() != (count * 2L + 1 + tableSize) * 4 + charCount * 2L) {
+            throw new IOException("corrupt irregular index");
+        }
+        offsets = slice(buf, (count + 1) * 4).asIntBuffer();
+        bases = slice(buf, count * 4).asIntBuffer();
+        slots = slice(buf, tableSize * 4).asIntBuffer();
+        chars = slice(buf, charCount * 2).asCharBuffer();
+        if (offsets.get(0) != 0 || offsets.get(count) != charCount) {
+            throw new IOException("corrupt irregular index");
+        }
+        for (int f = 0; f < count; f++) {
+            int base = bases.get(f);
+            if (offsets.get(f) > offsets.get(f + 1) || base < 0 || base >= count) {
+                throw new IOException("corrupt irregular index");
+            }
+        }
+        //每个变形恰好占一个槽位, 其余为空; 否则 find 可能找不到空槽而一直探测下去
+        boolean[] seen = new boolean[count];
+        int used = 0;
+        for (int s = 0; s < tableSize; s++) {
+            int slot = slots.get(s);
+            if (slot < 0 || slot > count) {
+                throw new IOException("corrupt irregular index");
+            }
+            if (slot != 0) {
+                if (seen[slot - 1]) {
+                    throw new IOException("corrupt irregular index");
+                }
+                seen[slot - 1] = true;
+                used++;
+            }
+        }
+        if (used != count) {
+            throw new IOException("corrupt irregular index");
+        }
+        baseStrings = new String[count];
+    }
+
+    /**
+     * 由 FileUtils.readIrregular 读出的表格建立索引
+     * @param irregular list<string> 中是差不多相同的单词, 第0个为原形
+     */
+    public static IrregularIndex of(List<List<String>> irregular) {
+        Map<String, String> forms = new HashMap<>();
+        for (List<String> words : irregular) {
+            if (words.isEmpty()) {
+                continue;
+            }
+            String base = words.get(0);
+            for (String word : words) {
+                //已经存在的不覆盖, 保证先出现的行优先
+                forms.putIfAbsent(word, base);
+            }
+        }
+
+        String[] sortedForms = forms.keySet().toArray(new String[0]);
+        Arrays.sort(sortedForms);
+        Map<String, Integer> formIds = new HashMap<>(sortedForms.length * 2);
+        int charCount = 0;
+        for (int f = 0; f < sortedForms.length; f++) {
+            formIds.put(sortedForms[f], f);
+            charCount += sortedForms[f].length();
+        }
+        int count = sortedForms.length;
+        int tableSize = Integer.highestOneBit(Math.max(MIN_TABLE_SIZE, count * 2) - 1) << 1;
+        int[] table = new int[tableSize];
+        for (int f = 0; f < count; f++) {
+            int s = hash(sortedForms[f]) & (tableSize - 1);
+            while (table[s] != 0) {
+                s = (s + 1) & (tableSize - 1);
+            }
+            table[s] = f + 1;
+        }
+
+        ByteBuffer data = ByteBuffer.allocate(12 + (count * 2 + 1 + tableSize) * 4 + charCount * 2);
+        data.putInt(count).putInt(charCount).putInt(tableSize);
+        int offset = 0;
+        data.putInt(offset);
+        for (String form : sortedForms) {
+            offset += form.length();
+            data.putInt(offset);
+        }
+        for (String form : sortedForms) {
+            data.putInt(formIds.get(forms.get(form)));
+        }
+        for (int slot : table) {
+            data.putInt(slot);
+        }
+        for (String form : sortedForms) {
+            for (int i = 0; i < form.length(); i++) {
+                data.putChar(form.charAt(i));
+            }
+        }
+        data.flip();
+        try {
+            return new IrregularIndex(data);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 读取不规则变化表, 优先使用旁边编译好的 .idx 文件
+     * .idx 记录了表格的大小和修改时间, 与表格不一致 (或不存在) 时重新解析表格并重新编译,
+     * 编译文件写不进去 (比如在 jar 里) 时只是不缓存
+     */
+    public static IrregularIndex load(File xls) throws Exception {
+        File compiled = new File(xls.getPath() + COMPILED_SUFFIX);
+        if (compiled.isFile()) {
+            try {
+                IrregularIndex index = readCompiled(compiled, xls.length(), xls.lastModified());
+                if (index != null) {
+                    return index;
+                }
+            } catch (IOException e) {
+                //文件损坏, 重新编译
+            }
+        }
+        IrregularIndex index = of(FileUtils.readIrregular(xls));
+        try {
+            index.writeCompiled(compiled, xls.length(), xls.lastModified());
+        } catch (IOException e) {
+            System.err.println("cannot write " + compiled + ": " + e);
+        }
+        return index;
+    }
+
+    /**
+     * 写编译文件: 文件头后面就是内存中的整块数据
+     * 先写临时文件再替换
+     */
+    void writeCompiled(File file, long sourceLength, long sourceModified) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(sourceLength).putLong(sourceModified);
+        header.flip();
+
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer[] buffers = {header, data.duplicate()};
+            while (buffers[1].hasRemaining()) {
+                channel.write(buffers);
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 读编译文件, 整块读入后直接使用; 格式不对或与表格不一致时返回null
+     */
+    static IrregularIndex readCompiled(File file, long sourceLength, long sourceModified) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        if (buf.remaining() < HEADER_SIZE || buf.getInt() != MAGIC || buf.getInt() != VERSION
+                || buf.getLong() != sourceLength || buf.getLong() != sourceModified) {
+            return null;
+        }
+        try {
+            return new IrregularIndex(buf.slice());
+        } catch (BufferUnderflowException e) {
+            throw new IOException("corrupt irregular index", e);
+        }
+    }
+
+    /**
+     * 查找单词对应的原形, 不存在返回null
+     */
+    public String find(String word) {
+        int mask = slots.limit() - 1;
+        for (int s = hash(word) & mask; ; s = (s + 1) & mask) {
+            int f = slots.get(s) - 1;
+            if (f < 0) {
+                return null;
+            }
+            if (matches(f, word)) {
+                return baseString(bases.get(f));
+            }
+        }
+    }
+
+    /**
+     * 索引中变形的个数
+     */
+    public int size() {
+        return bases.limit();
+    }
+
+    /**
+     * 第 f 个变形是否等于 word
+     */
+    private boolean matches(int f, String word) {
+        int start = offsets.get(f);
+        if (offsets.get(f + 1) - start != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (chars.get(start + i) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 第 f 个变形的字符串, 多线程重复解码也只是得到相同的值
+     */
+    private String baseString(int f) {
+        String base = baseStrings[f];
+        if (base == null) {
+            int start = offsets.get(f);
+            char[] buf = new char[offsets.get(f + 1) - start];
+            for (int i = 0; i < buf.length; i++) {
+                buf[i] = chars.get(start + i);
+            }
+            base = new String(buf);
+            baseStrings[f] = base;
+        }
+        return base;
+    }
+
+    /**
+     * String.hashCode 的算法是固定的, 可以写进文件; 再打散一下低位
+     */
+    private static int hash(String word) {
+        int h = word.hashCode();
+        return h ^ (h >>> 16) ^ (h >>> 7);
+    }
+
+    private static ByteBuffer slice(ByteBuffer buf, int length) {
+        ByteBuffer slice = buf.slice();
+        slice.limit(length);
+        buf.position(buf.position() + length);
+        return slice;
+    }
+}
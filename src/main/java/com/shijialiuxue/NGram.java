@@ -0,0 +1,45 @@
+package com.shijialiuxue;
+
+/**
+ * 一个词根 n-gram 及其出现次数
+ */
+public class NGram {
+    /**
+     * 词根, 空格分隔
+     */
+    private final String stems;
+    /**
+     * 每个词根下出现最多的词, 空格分隔, 用于展示
+     */
+    private final String words;
+    private final int n;
+    private final int frequency;
+
+    public NGram(String stems, String words, int n, int frequency) {
+        this.stems = stems;
+        this.words = words;
+        this.n = n;
+        this.frequency = frequency;
+    }
+
+    public String getStems() {
+        return stems;
+    }
+
+    public String getWords() {
+        return words;
+    }
+
+    public int getN() {
+        return n;
+    }
+
+    public int getFrequency() {
+        return frequency;
+    }
+
+    @Override
+    public String toString() {
+        return words + "(" + stems + ")=" + frequency;
+    }
+}
@@ -0,0 +1,278 @@
+package com.shijialiuxue;
+
+import com.shijialiuxue.util.CharCountMap;
+import com.shijialiuxue.util.ExcelEventReader;
+import com.shijialiuxue.util.LongCountMap;
+import com.shijialiuxue.util.TokenConsumer;
+import com.shijialiuxue.util.Tokenizer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 词根 bigram / trigram 计数, 用于找常见搭配 ("glacial period", "continuous adjustment")
+ *
+ * 每个不同的词只求一次词根, 词根编号为 21 位整数; 最近几个词根编号滚动拼成一个 long 作为 n-gram 的 key,
+ * 计入 long -> 次数 的基本类型 hash 表. 不拼接字符串, 每个不同 n-gram 只占一个 long 一个 int,
+ * 并且 key 可以还原出词根, 没有 hash 冲突
+ *
+ * n-gram 不跨句子: 句号/问号/感叹号/分号/冒号, 以及行 (单元格) 的结尾都会断开
+ *
+ * 非线程安全
+ */
+public class NGramCounter implements TokenConsumer {
+
+    /**
+     * 最长统计到 trigram
+     */
+    public static final int MAX_N = 3;
+
+    private static final int ID_BITS = 21;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+    private static final long WINDOW_MASK = (1L << (ID_BITS * MAX_N)) - 1;
+
+    private final WordStemmer stemmer;
+    private final PorterStemmer porter = new PorterStemmer();
+    private final Tokenizer tokenizer = new Tokenizer();
+
+    /**
+     * 单词 -> 次数, 条目编号对应 wordStems
+     */
+    private final CharCountMap words = new CharCountMap();
+    private int[] wordStems = new int[256];
+
+    /**
+     * 词根, 条目编号就是词根编号
+     */
+    private final CharCountMap stems = new CharCountMap();
+
+    /**
+     * grams[n] 是 n-gram 的计数, n = 2..MAX_N
+     */
+    private final LongCountMap[] grams = new LongCountMap[MAX_N + 1];
+
+    /**
+     * 当前句子中最近 MAX_N 个词根编号, 最近的在低位
+     */
+    private long window;
+    private int windowLength;
+
+    /**
+     * @param stemmer 求词根, 每个不同单词只调用一次
+     */
+    public NGramCounter(WordStemmer stemmer) {
+        this.stemmer = stemmer;
+        for (int n = 2; n <= MAX_N; n++) {
+            grams[n] = new LongCountMap();
+        }
+    }
+
+    @Override
+    public void accept(char[] buf, int off, int len) {
+        int e = words.addEntry(buf, off, len, 1);
+        if (e == wordStems.length) {
+            wordStems = Arrays.copyOf(wordStems, e * 2);
+        }
+        if (words.count(e) == 1) {
+            wordStems[e] = stemId(stemmer.stem(porter, new String(buf, off, len)));
+        }
+        window = ((window << ID_BITS) | wordStems[e]) & WINDOW_MASK;
+        if (windowLength < MAX_N) {
+            windowLength++;
+        }
+        for (int n = 2; n <= windowLength; n++) {
+            grams[n].add(window & keyMask(n), 1);
+        }
+    }
+
+    /**
+     * 句子结束, 之后的单词不与前面的组成 n-gram
+     */
+    public void endSentence() {
+        window = 0;
+        windowLength = 0;
+    }
+
+    /**
+     * 一段文字, 按句子切开后分词
+     */
+    public void addText(CharSequence text) {
+        int start = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '.' || c == '?' || c == '!' || c == ';' || c == ':') {
+                if (i > start) {
+                    tokenizer.tokenize(text.subSequence(start, i), this);
+                }
+                endSentence();
+                start = i + 1;
+            }
+        }
+        if (length > start) {
+            tokenizer.tokenize(text.subSequence(start, length), this);
+        }
+        endSentence();
+    }
+
+    /**
+     * 读取TXT, 每行单独处理
+     */
+    public void addTxt(File file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                addText(line);
+            }
+        }
+    }
+
+    /**
+     * 读取表格第一个sheet, 每个单元格单独处理
+     */
+    public void addExcel(File file) throws IOException {
+        ExcelEventReader.read(file, (row, col, text) -> addText(text));
+    }
+
+    /**
+     * 按扩展名读取: .xls/.xlsx 按表格读取, 其他按TXT读取
+     */
+    public void addDocument(File file) throws IOException {
+        String name = file.getName().toLowerCase();
+        if (name.endsWith(".xls") || name.endsWith(".xlsx")) {
+            addExcel(file);
+        } else {
+            addTxt(file);
+        }
+    }
+
+    /**
+     * 去掉出现次数小于 minCount 的 n-gram, 释放内存
+     * @return 去掉的 n-gram 个数
+     */
+    public int prune(int minCount) {
+        int removed = 0;
+        for (int n = 2; n <= MAX_N; n++) {
+            removed += grams[n].prune(minCount);
+        }
+        return removed;
+    }
+
+    /**
+     * 这几个词的词根组成的 n-gram 的次数
+     */
+    public int frequency(String... phrase) {
+        checkN(phrase.length);
+        long key = 0;
+        for (String word : phrase) {
+            String stem = stemmer.stem(porter, word.toLowerCase());
+            char[] buf = stem.toCharArray();
+            int id = stems.find(buf, 0, buf.length);
+            if (id < 0) {
+                return 0;
+            }
+            key = (key << ID_BITS) | id;
+        }
+        return grams[phrase.length].get(key);
+    }
+
+    /**
+     * 不同 n-gram 的个数
+     */
+    public int size(int n) {
+        checkN(n);
+        return grams[n].size();
+    }
+
+    /**
+     * 次数最多的 k 个 n-gram, 从多到少, 次数相同按出现的先后; 只取次数不小于 minCount 的
+     */
+    public List<NGram> top(int n, int k, int minCount) {
+        checkN(n);
+        LongCountMap counts = grams[n];
+        String[] labels = stemLabels();
+        List<NGram> result = new ArrayList<>();
+        for (int e : TopK.topEntries(counts.size(), counts::count, k, minCount)) {
+            long key = counts.key(e);
+            StringBuilder stemText = new StringBuilder();
+            StringBuilder wordText = new StringBuilder();
+            for (int i = n - 1; i >= 0; i--) {
+                int id = (int) ((key >>> (ID_BITS * i)) & ID_MASK);
+                if (i < n - 1) {
+                    stemText.append(' ');
+                    wordText.append(' ');
+                }
+                stemText.append(stems.key(id));
+                wordText.append(labels[id]);
+            }
+            result.add(new NGram(stemText.toString(), wordText.toString(), n, counts.count(e)));
+        }
+        return result;
+    }
+
+    /**
+     * 每个词根下出现最多的词, 次数相同取先出现的
+     */
+    private String[] stemLabels() {
+        int[] best = new int[stems.size()];
+        Arrays.fill(best, -1);
+        for (int e = 0; e < words.size(); e++) {
+            int id = wordStems[e];
+            if (best[id] < 0 || words.count(e) > words.count(best[id])) {
+                best[id] = e;
+            }
+        }
+        String[] labels = new String[best.length];
+        for (int id = 0; id < best.length; id++) {
+            labels[id] = words.key(best[id]);
+        }
+        return labels;
+    }
+
+    private int stemId(String stem) {
+        char[] buf = stem.toCharArray();
+        int id = stems.addEntry(buf, 0, buf.length, 1);
+        if (id > ID_MASK) {
+            throw new IllegalStateException("too many distinct stems: " + stems.size());
+        }
+        return id;
+    }
+
+    private static long keyMask(int n) {
+        return (1L << (ID_BITS * n)) - 1;
+    }
+
+    private static void checkN(int n) {
+        if (n < 2 || n > MAX_N) {
+            throw new IllegalArgumentException("n must be between 2 and " + MAX_N + ": " + n);
+        }
+    }
+
+    /**
+     * 参数: 输入文件(.txt/.xls/.xlsx) [k, 默认20] [最少次数, 默认2]
+     * 输出 n 词组 词根 次数, TAB 分隔
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("usage: NGramCounter <input .txt/.xls/.xlsx> [k] [minCount]");
+            return;
+        }
+        int k = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int minCount = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        File irregularFile = new File(NGramCounter.class.getClassLoader().getResource("irregular.xls").getPath());
+        NGramCounter counter = new NGramCounter(new WordStemmer(IrregularIndex.load(irregularFile)));
+        counter.addDocument(new File(args[0]));
+        counter.prune(minCount);
+        for (int n = 2; n <= MAX_N; n++) {
+            for (NGram gram : counter.top(n, k, minCount)) {
+                System.out.println(n + "\t" + gram.getWords() + "\t" + gram.getStems() + "\t" + gram.getFrequency());
+            }
+        }
+    }
+}
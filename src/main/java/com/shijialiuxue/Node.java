@@ -12,14 +12,19 @@ public class Node implements Comparable<Node> {
     /**
      * 词根 频率
      */
-    private Integer frequency;
+    private int frequency;
 
     /**
      * 词根对应词
      */
     private List<NodeWord> wordList;
 
-    public Node(String stem, NodeWord wordList, Integer frequency) {
+    /**
+     * 按文档的出现次数, 只有 DocumentIndex 建立的节点才有, 其他为null
+     */
+    private Postings postings;
+
+    public Node(String stem, NodeWord wordList, int frequency) {
         this.stem = stem;
         this.wordList = new ArrayList<>();
         this.wordList.add(wordList);
@@ -38,9 +43,23 @@ public class Node implements Comparable<Node> {
         return frequency;
     }
 
+    public Postings getPostings() {
+        return postings;
+    }
+
+    /**
+     * 在文档 doc 中出现 num 次, 第一次调用时建立倒排表
+     */
+    public void addPosting(int doc, int num) {
+        if (postings == null) {
+            postings = new Postings();
+        }
+        postings.add(doc, num);
+    }
+
     @Override
     public int compareTo(Node node) {
-        return this.frequency.compareTo(node.getFrequency());
+        return Integer.compare(this.frequency, node.getFrequency());
     }
 
     /**
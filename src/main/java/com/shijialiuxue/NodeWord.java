@@ -8,9 +8,9 @@ public class NodeWord implements Comparable<NodeWord> {
     /**
      * 词 频率
      */
-    private Integer frequency;
+    private int frequency;
 
-    public NodeWord(String word, Integer frequency) {
+    public NodeWord(String word, int frequency) {
         this.word = word;
         this.frequency = frequency;
     }
@@ -25,7 +25,7 @@ public class NodeWord implements Comparable<NodeWord> {
 
     @Override
     public int compareTo(NodeWord node) {
-        return this.frequency.compareTo(node.getFrequency());
+        return Integer.compare(this.frequency, node.getFrequency());
     }
 
     /**
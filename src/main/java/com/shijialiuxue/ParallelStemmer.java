@@ -0,0 +1,155 @@
+package com.shijialiuxue;
+
+import com.shijialiuxue.cache.StemCache;
+import com.shijialiuxue.metrics.PipelineMetrics;
+import com.shijialiuxue.metrics.Stage;
+import com.shijialiuxue.util.CharCountMap;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork/Join 并行求词根
+ * 把不同单词切成若干段分给 ForkJoinPool, 每个叶子任务使用自己的 PorterStemmer
+ * (PorterStemmer 有状态, 非线程安全), 在自己的 StemIndex 里聚合,
+ * 最后按段的顺序合并, 结果与单线程依次处理完全相同
+ *
+ * 单个单词求词根 (不规则变化表和可选的 StemCache) 由 WordStemmer 完成, 所有线程共用
+ */
+public class ParallelStemmer {
+
+    /**
+     * 叶子任务最少处理的单词数
+     */
+    private static final int MIN_LEAF_SIZE = 1024;
+
+    private final WordStemmer words;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * @param irregular 不规则变化索引
+     * @param parallelism 线程数
+     */
+    public ParallelStemmer(IrregularIndex irregular, int parallelism) {
+        this(irregular, parallelism, null);
+    }
+
+    /**
+     * @param irregular 不规则变化索引
+     * @param parallelism 线程数
+     * @param cache 词根缓存, 为null时不缓存
+     */
+    public ParallelStemmer(IrregularIndex irregular, int parallelism, StemCache cache) {
+        this(new WordStemmer(irregular, cache), parallelism);
+    }
+
+    /**
+     * @param words 单个单词求词根
+     * @param parallelism 线程数
+     */
+    public ParallelStemmer(WordStemmer words, int parallelism) {
+        this.words = words;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * 对每个单词求词根并按词根聚合
+     * @param counts 单词 -> 出现次数
+     * @return 聚合结果, 词根顺序与依次遍历 counts 时相同
+     */
+    public StemIndex stem(Map<String, Long> counts) {
+        return stem(CharCountMap.of(counts));
+    }
+
+    /**
+     * 对每个单词求词根并按词根聚合
+     * @param counts 单词 -> 出现次数
+     * @return 聚合结果, 词根顺序与按条目编号依次处理时相同
+     */
+    public StemIndex stem(CharCountMap counts) {
+        return stem(counts, null);
+    }
+
+    /**
+     * 对每个单词求词根并按词根聚合, 分别记录 STEM 和 AGGREGATE 两个阶段的耗时
+     * @param counts 单词 -> 出现次数
+     * @param metrics 指标, 可以为null
+     * @return 聚合结果, 词根顺序与按条目编号依次处理时相同
+     */
+    public StemIndex stem(CharCountMap counts, PipelineMetrics metrics) {
+        long start = System.nanoTime();
+        int leafSize = Math.max(MIN_LEAF_SIZE, counts.size() / (pool.getParallelism() * 8) + 1);
+        int leaves = (counts.size() + leafSize - 1) / leafSize;
+        StemIndex[] partial = new StemIndex[leaves];
+        pool.invoke(new StemTask(counts, partial, leafSize, 0, leaves));
+        long stemmed = System.nanoTime();
+
+        //按段的顺序合并
+        StemIndex index = new StemIndex();
+        for (StemIndex part : partial) {
+            index.merge(part);
+        }
+        if (metrics != null) {
+            metrics.record(Stage.STEM, stemmed - start);
+            metrics.record(Stage.AGGREGATE, System.nanoTime() - stemmed);
+        }
+        return index;
+    }
+
+    public WordStemmer getWordStemmer() {
+        return words;
+    }
+
+    public StemCache getCache() {
+        return words.getCache();
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * 处理 [from, to) 这几段, 每段结果放到 partial 对应位置
+     */
+    private class StemTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final CharCountMap counts;
+        private final StemIndex[] partial;
+        private final int leafSize;
+        private final int from;
+        private final int to;
+
+        StemTask(CharCountMap counts, StemIndex[] partial, int leafSize, int from, int to) {
+            this.counts = counts;
+            this.partial = partial;
+            this.leafSize = leafSize;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new StemTask(counts, partial, leafSize, from, mid),
+                        new StemTask(counts, partial, leafSize, mid, to));
+                return;
+            }
+            if (from == to) {
+                return;
+            }
+            PorterStemmer stemmer = new PorterStemmer();
+            StemIndex index = new StemIndex();
+            int end = Math.min(counts.size(), (from + 1) * leafSize);
+            for (int e = from * leafSize; e < end; e++) {
+                String word = counts.key(e);
+                index.add(word, words.stem(stemmer, word), counts.count(e));
+            }
+            partial[from] = index;
+        }
+    }
+}
@@ -34,14 +34,18 @@ package com.shijialiuxue;
 */
 
 
+import com.shijialiuxue.metrics.PipelineMetrics;
+import com.shijialiuxue.metrics.Stage;
+import com.shijialiuxue.util.CharCountMap;
 import com.shijialiuxue.util.FileUtils;
+import com.shijialiuxue.util.MappedTxtReader;
+import com.shijialiuxue.util.WordCounter;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Stemmer, implementing the Porter Stemming Algorithm
@@ -52,11 +56,11 @@ import java.util.stream.Collectors;
  *
  * 一下所有方法都是算法部分，运行部分在main
  */
-class PorterStemmer {
-    private char[] b;
+public class PorterStemmer {
+    protected char[] b;
     private int i,     /* offset into b */
-            i_end, /* offset to end of stemmed word */
-            j, k;
+            i_end; /* offset to end of stemmed word */
+    protected int j, k;
     private static final int INC = 50;
 
     /* unit of size whereby b is increased */
@@ -148,7 +152,7 @@ class PorterStemmer {
          ....
    */
 
-    private int m() {
+    protected int m() {
         int n = 0;
         int i = 0;
         while (true) {
@@ -208,11 +212,77 @@ class PorterStemmer {
         return true;
     }
 
-    private boolean ends(String s) {
-        int l = s.length();
+   /* suffixes and their replacements, kept as char arrays so that ends() and
+      setto() do not go through String.charAt(). */
+
+    private static final char[] EMPTY = "".toCharArray();
+    private static final char[] E = "e".toCharArray();
+    private static final char[] I = "i".toCharArray();
+    private static final char[] Y = "y".toCharArray();
+    private static final char[] AL = "al".toCharArray();
+    private static final char[] AT = "at".toCharArray();
+    private static final char[] BL = "bl".toCharArray();
+    private static final char[] ED = "ed".toCharArray();
+    private static final char[] ER = "er".toCharArray();
+    private static final char[] IC = "ic".toCharArray();
+    private static final char[] IZ = "iz".toCharArray();
+    private static final char[] OU = "ou".toCharArray();
+    private static final char[] ANT = "ant".toCharArray();
+    private static final char[] ATE = "ate".toCharArray();
+    private static final char[] BLE = "ble".toCharArray();
+    private static final char[] BLI = "bli".toCharArray();
+    private static final char[] EED = "eed".toCharArray();
+    private static final char[] ELI = "eli".toCharArray();
+    private static final char[] ENT = "ent".toCharArray();
+    private static final char[] FUL = "ful".toCharArray();
+    private static final char[] IES = "ies".toCharArray();
+    private static final char[] ING = "ing".toCharArray();
+    private static final char[] ION = "ion".toCharArray();
+    private static final char[] ISM = "ism".toCharArray();
+    private static final char[] ITI = "iti".toCharArray();
+    private static final char[] IVE = "ive".toCharArray();
+    private static final char[] IZE = "ize".toCharArray();
+    private static final char[] LOG = "log".toCharArray();
+    private static final char[] OUS = "ous".toCharArray();
+    private static final char[] ABLE = "able".toCharArray();
+    private static final char[] ALLI = "alli".toCharArray();
+    private static final char[] ANCE = "ance".toCharArray();
+    private static final char[] ANCI = "anci".toCharArray();
+    private static final char[] ATOR = "ator".toCharArray();
+    private static final char[] ENCE = "ence".toCharArray();
+    private static final char[] ENCI = "enci".toCharArray();
+    private static final char[] IBLE = "ible".toCharArray();
+    private static final char[] ICAL = "ical".toCharArray();
+    private static final char[] IZER = "izer".toCharArray();
+    private static final char[] LOGI = "logi".toCharArray();
+    private static final char[] MENT = "ment".toCharArray();
+    private static final char[] NESS = "ness".toCharArray();
+    private static final char[] SSES = "sses".toCharArray();
+    private static final char[] TION = "tion".toCharArray();
+    private static final char[] ALISM = "alism".toCharArray();
+    private static final char[] ALITI = "aliti".toCharArray();
+    private static final char[] ALIZE = "alize".toCharArray();
+    private static final char[] ATION = "ation".toCharArray();
+    private static final char[] ATIVE = "ative".toCharArray();
+    private static final char[] EMENT = "ement".toCharArray();
+    private static final char[] ENTLI = "entli".toCharArray();
+    private static final char[] ICATE = "icate".toCharArray();
+    private static final char[] ICITI = "iciti".toCharArray();
+    private static final char[] IVITI = "iviti".toCharArray();
+    private static final char[] OUSLI = "ousli".toCharArray();
+    private static final char[] BILITI = "biliti".toCharArray();
+    private static final char[] TIONAL = "tional".toCharArray();
+    private static final char[] ATIONAL = "ational".toCharArray();
+    private static final char[] FULNESS = "fulness".toCharArray();
+    private static final char[] IVENESS = "iveness".toCharArray();
+    private static final char[] IZATION = "ization".toCharArray();
+    private static final char[] OUSNESS = "ousness".toCharArray();
+
+    private boolean ends(char[] s) {
+        int l = s.length;
         int o = k - l + 1;
         if (o < 0) return false;
-        for (int i = 0; i < l; i++) if (b[o + i] != s.charAt(i)) return false;
+        for (int i = 0; i < l; i++) if (b[o + i] != s[i]) return false;
         j = k - l;
         return true;
     }
@@ -220,16 +290,16 @@ class PorterStemmer {
    /* setto(s) sets (j+1),...k to the characters in the string s, readjusting
       k. */
 
-    private void setto(String s) {
-        int l = s.length();
+    protected void setto(char[] s) {
+        int l = s.length;
         int o = j + 1;
-        for (int i = 0; i < l; i++) b[o + i] = s.charAt(i);
+        for (int i = 0; i < l; i++) b[o + i] = s[i];
         k = j + l;
     }
 
     /* r(s) is used further down. */
 
-    private void r(String s) {
+    protected void r(char[] s) {
         if (m() > 0) setto(s);
     }
 
@@ -257,137 +327,137 @@ class PorterStemmer {
 
     private void step1() {
         if (b[k] == 's') {
-            if (ends("sses")) k -= 2;
-            else if (ends("ies")) setto("i");
+            if (ends(SSES)) k -= 2;
+            else if (ends(IES)) setto(I);
             else if (b[k - 1] != 's') k--;
         }
-        if (ends("eed")) {
+        if (ends(EED)) {
             if (m() > 0) k--;
-        } else if ((ends("ed") || ends("ing")) && vowelinstem()) {
+        } else if ((ends(ED) || ends(ING)) && vowelinstem()) {
             k = j;
-            if (ends("at")) setto("ate");
-            else if (ends("bl")) setto("ble");
-            else if (ends("iz")) setto("ize");
+            if (ends(AT)) setto(ATE);
+            else if (ends(BL)) setto(BLE);
+            else if (ends(IZ)) setto(IZE);
             else if (doublec(k)) {
                 k--;
                 {
                     int ch = b[k];
                     if (ch == 'l' || ch == 's' || ch == 'z') k++;
                 }
-            } else if (m() == 1 && cvc(k)) setto("e");
+            } else if (m() == 1 && cvc(k)) setto(E);
         }
     }
 
     /* step2() turns terminal y to i when there is another vowel in the stem. */
 
     private void step2() {
-        if (ends("y") && vowelinstem()) b[k] = 'i';
+        if (ends(Y) && vowelinstem()) b[k] = 'i';
     }
 
    /* step3() maps double suffices to single ones. so -ization ( = -ize plus
       -ation) maps to -ize etc. note that the string before the suffix must give
       m() > 0. */
 
-    private void step3() {
+    protected void step3() {
         if (k == 0) return; /* For Bug 1 */
         switch (b[k - 1]) {
             case 'a':
-                if (ends("ational")) {
-                    r("ate");
+                if (ends(ATIONAL)) {
+                    r(ATE);
                     break;
                 }
-                if (ends("tional")) {
-                    r("tion");
+                if (ends(TIONAL)) {
+                    r(TION);
                     break;
                 }
                 break;
             case 'c':
-                if (ends("enci")) {
-                    r("ence");
+                if (ends(ENCI)) {
+                    r(ENCE);
                     break;
                 }
-                if (ends("anci")) {
-                    r("ance");
+                if (ends(ANCI)) {
+                    r(ANCE);
                     break;
                 }
                 break;
             case 'e':
-                if (ends("izer")) {
-                    r("ize");
+                if (ends(IZER)) {
+                    r(IZE);
                     break;
                 }
                 break;
             case 'l':
-                if (ends("bli")) {
-                    r("ble");
+                if (ends(BLI)) {
+                    r(BLE);
                     break;
                 }
-                if (ends("alli")) {
-                    r("al");
+                if (ends(ALLI)) {
+                    r(AL);
                     break;
                 }
-                if (ends("entli")) {
-                    r("ent");
+                if (ends(ENTLI)) {
+                    r(ENT);
                     break;
                 }
-                if (ends("eli")) {
-                    r("e");
+                if (ends(ELI)) {
+                    r(E);
                     break;
                 }
-                if (ends("ousli")) {
-                    r("ous");
+                if (ends(OUSLI)) {
+                    r(OUS);
                     break;
                 }
                 break;
             case 'o':
-                if (ends("ization")) {
-                    r("ize");
+                if (ends(IZATION)) {
+                    r(IZE);
                     break;
                 }
-                if (ends("ation")) {
-                    r("ate");
+                if (ends(ATION)) {
+                    r(ATE);
                     break;
                 }
-                if (ends("ator")) {
-                    r("ate");
+                if (ends(ATOR)) {
+                    r(ATE);
                     break;
                 }
                 break;
             case 's':
-                if (ends("alism")) {
-                    r("al");
+                if (ends(ALISM)) {
+                    r(AL);
                     break;
                 }
-                if (ends("iveness")) {
-                    r("ive");
+                if (ends(IVENESS)) {
+                    r(IVE);
                     break;
                 }
-                if (ends("fulness")) {
-                    r("ful");
+                if (ends(FULNESS)) {
+                    r(FUL);
                     break;
                 }
-                if (ends("ousness")) {
-                    r("ous");
+                if (ends(OUSNESS)) {
+                    r(OUS);
                     break;
                 }
                 break;
             case 't':
-                if (ends("aliti")) {
-                    r("al");
+                if (ends(ALITI)) {
+                    r(AL);
                     break;
                 }
-                if (ends("iviti")) {
-                    r("ive");
+                if (ends(IVITI)) {
+                    r(IVE);
                     break;
                 }
-                if (ends("biliti")) {
-                    r("ble");
+                if (ends(BILITI)) {
+                    r(BLE);
                     break;
                 }
                 break;
             case 'g':
-                if (ends("logi")) {
-                    r("log");
+                if (ends(LOGI)) {
+                    r(LOG);
                     break;
                 }
         }
@@ -395,41 +465,41 @@ class PorterStemmer {
 
     /* step4() deals with -ic-, -full, -ness etc. similar strategy to step3. */
 
-    private void step4() {
+    protected void step4() {
         switch (b[k]) {
             case 'e':
-                if (ends("icate")) {
-                    r("ic");
+                if (ends(ICATE)) {
+                    r(IC);
                     break;
                 }
-                if (ends("ative")) {
-                    r("");
+                if (ends(ATIVE)) {
+                    r(EMPTY);
                     break;
                 }
-                if (ends("alize")) {
-                    r("al");
+                if (ends(ALIZE)) {
+                    r(AL);
                     break;
                 }
                 break;
             case 'i':
-                if (ends("iciti")) {
-                    r("ic");
+                if (ends(ICITI)) {
+                    r(IC);
                     break;
                 }
                 break;
             case 'l':
-                if (ends("ical")) {
-                    r("ic");
+                if (ends(ICAL)) {
+                    r(IC);
                     break;
                 }
-                if (ends("ful")) {
-                    r("");
+                if (ends(FUL)) {
+                    r(EMPTY);
                     break;
                 }
                 break;
             case 's':
-                if (ends("ness")) {
-                    r("");
+                if (ends(NESS)) {
+                    r(EMPTY);
                     break;
                 }
                 break;
@@ -438,54 +508,54 @@ class PorterStemmer {
 
     /* step5() takes off -ant, -ence etc., in context <c>vcvc<v>. */
 
-    private void step5() {
+    protected void step5() {
         if (k == 0) return; /* for Bug 1 */
         switch (b[k - 1]) {
             case 'a':
-                if (ends("al")) break;
+                if (ends(AL)) break;
                 return;
             case 'c':
-                if (ends("ance")) break;
-                if (ends("ence")) break;
+                if (ends(ANCE)) break;
+                if (ends(ENCE)) break;
                 return;
             case 'e':
-                if (ends("er")) break;
+                if (ends(ER)) break;
                 return;
             case 'i':
-                if (ends("ic")) break;
+                if (ends(IC)) break;
                 return;
             case 'l':
-                if (ends("able")) break;
-                if (ends("ible")) break;
+                if (ends(ABLE)) break;
+                if (ends(IBLE)) break;
                 return;
             case 'n':
-                if (ends("ant")) break;
-                if (ends("ement")) break;
-                if (ends("ment")) break;
+                if (ends(ANT)) break;
+                if (ends(EMENT)) break;
+                if (ends(MENT)) break;
                 /* element etc. not stripped before the m */
-                if (ends("ent")) break;
+                if (ends(ENT)) break;
                 return;
             case 'o':
-                if (ends("ion") && j >= 0 && (b[j] == 's' || b[j] == 't')) break;
+                if (ends(ION) && j >= 0 && (b[j] == 's' || b[j] == 't')) break;
                 /* j >= 0 fixes Bug 2 */
-                if (ends("ou")) break;
+                if (ends(OU)) break;
                 return;
             /* takes care of -ous */
             case 's':
-                if (ends("ism")) break;
+                if (ends(ISM)) break;
                 return;
             case 't':
-                if (ends("ate")) break;
-                if (ends("iti")) break;
+                if (ends(ATE)) break;
+                if (ends(ITI)) break;
                 return;
             case 'u':
-                if (ends("ous")) break;
+                if (ends(OUS)) break;
                 return;
             case 'v':
-                if (ends("ive")) break;
+                if (ends(IVE)) break;
                 return;
             case 'z':
-                if (ends("ize")) break;
+                if (ends(IZE)) break;
                 return;
             default:
                 return;
@@ -523,6 +593,32 @@ class PorterStemmer {
         i = 0;
     }
 
+    /** Stem len characters of src starting at off and copy the result into
+     * dst, returning the length of the result. The result is never longer
+     * than the input, so dst needs room for len characters; src and dst may
+     * be the same array. Any characters added with add() and not yet
+     * stemmed are discarded. Once the internal buffer has grown to the
+     * longest word seen, this does no allocation.
+     */
+    public int stem(char[] src, int off, int len, char[] dst) {
+        if (len > b.length) b = new char[len + INC];
+        System.arraycopy(src, off, b, 0, len);
+        i = len;
+        stem();
+        System.arraycopy(b, 0, dst, 0, i_end);
+        return i_end;
+    }
+
+    /** Stem a whole word at once. This is the same as add(char[], int)
+     * followed by stem() and toString().
+     */
+    public String stem(String word) {
+        char[] w = word.toCharArray();
+        add(w, w.length);
+        stem();
+        return toString();
+    }
+
     //检查scan的单词是不是动词的特殊变换，对照特殊变幻的Excel表格
 //    public static int findIrregular(List<List<String>> irregular, String word) {
 //        for (List<String> words : irregular) {
@@ -537,8 +633,9 @@ class PorterStemmer {
      * 原:检查scan的单词是不是动词的特殊变换，对照特殊变幻的Excel表格
      *
      * 根据给的词根excel 判断是否已经给出当前单词, 若有则返回当前词 词根 否则返回null
+     * 逐行扫描, 已由 IrregularIndex 替代, 保留作为 benchmarks 中的对照
      */
-    private static String findIrregular(List<List<String>> irregular, String word) {
+    static String findIrregular(List<List<String>> irregular, String word) {
 
 //        Optional<List<String>> first = irregular.parallelStream().filter(t -> t.contains(word)).findFirst();
 //        return first.isEmpty() ? null : first.get().get(0);
@@ -578,12 +675,13 @@ class PorterStemmer {
 
     /**
      * 检查是否存在 在已经构建的list中
+     * 线性扫描, 已由 StemIndex 替代, 保留作为 benchmarks 中的对照
      * @param result list
      * @param word 单词
      * @param stem 单词词根
      * @param num 单词出现次数
      */
-    private static boolean checkWordIsExistInArray(ArrayList<Node> result, String word, String stem, Integer num) {
+    static boolean checkWordIsExistInArray(ArrayList<Node> result, String word, String stem, Integer num) {
         //如果这个词已经存在在result里面，则频率加一
         for (Node node : result) {
             for (NodeWord words : node.getWordList()) {
@@ -608,7 +706,7 @@ class PorterStemmer {
      * irregular1.xls  是测试文件
      *
      */
-    private final static String irregularFilePath = "irregular.xls";
+    final static String irregularFilePath = "irregular.xls";
     private final static String wordsForExcel = "five.xls";
     private final static String wordsForTxt = "reading.txt";
 
@@ -616,65 +714,62 @@ class PorterStemmer {
      * 以下是运行部分，运用read中的方法和上面的算法
      */
     public static void main(String[] args) throws Exception {
+        //-q 不逐个打印单词
+        boolean quiet = Arrays.asList(args).contains("-q");
+        PipelineMetrics metrics = new PipelineMetrics();
+        metrics.register();
 
         long startTime = System.currentTimeMillis();
-        PorterStemmer s = new PorterStemmer();
 
         //读取存不规则单词的表格
         File file1 = new File(PorterStemmer.class.getClassLoader().getResource(irregularFilePath).getPath());
-        List<List<String>> irregular = FileUtils.readIrregular(file1);
+        IrregularIndex irregular = metrics.time(Stage.IRREGULAR_LOAD, () -> IrregularIndex.load(file1));
 
-        //读取文档（TPO资料，Excel形式）
+        //读取文档（TPO资料，Excel形式）, 单词直接计数, 不保存全部单词
+        WordCounter counter = new WordCounter();
         File file2 = new File(PorterStemmer.class.getClassLoader().getResource(wordsForExcel).getPath());
-        List<String> wordList = FileUtils.readExcel(file2);
+        metrics.time(Stage.EXCEL_READ, () -> FileUtils.readExcel(file2, counter));
 
-        //读取文档（TPO资料，TXT格式）
+        //读取文档（TPO资料，TXT格式）, 内存映射分块并行读取, 每块各自计数, 读完一块就按顺序合并
         File file3 = new File(PorterStemmer.class.getClassLoader().getResource(wordsForTxt).getPath());
-        wordList.addAll(FileUtils.readTxt(file3));
+        //合并计入 GROUP 并从 TXT_READ 中扣除, 各阶段耗时不重复
+        long groupBefore = metrics.getStageNanos(Stage.GROUP);
+        long txtStart = System.nanoTime();
+        try {
+            MappedTxtReader.read(file3, Runtime.getRuntime().availableProcessors(),
+                    WordCounter::new, chunkCounter -> metrics.time(Stage.GROUP, () -> counter.merge(chunkCounter)));
+        } finally {
+            long merged = metrics.getStageNanos(Stage.GROUP) - groupBefore;
+            metrics.record(Stage.TXT_READ, System.nanoTime() - txtStart - merged);
+        }
 
 
 
-        long seconds = (startTime - System.currentTimeMillis()) / 1000;
+        long seconds = (System.currentTimeMillis() - startTime) / 1000;
         System.out.println("read file used seconds " + seconds);
 
 
-        //分组 求和
-        Map<String, Long> collect = wordList.parallelStream().collect(Collectors.groupingBy(String::toString, Collectors.counting()));
+        //分组 求和 (读取时已经完成)
+        CharCountMap collect = counter.getCountMap();
+        metrics.addTokens(collect.getTotal());
+        metrics.setDistinctWords(collect.size());
 
 
-        //储存结果
-        ArrayList<Node> result = new ArrayList<>();
-        for (Map.Entry<String, Long> entry : collect.entrySet()) {
-            String word = entry.getKey();
-            int num = entry.getValue().intValue();
-            System.out.println(entry.getKey());
-
-            // 词根
-            String temp = word;
-//            if (!(findIrregular(irregular, word) == -1)) {
-//                temp = irregular.get(findIrregular(irregular, temp)).get(0);
-//            }
-            String s1 = findIrregular(irregular, word);
-            if (s1 != null) {
-                temp = s1;
+        if (!quiet) {
+            for (int e = 0; e < collect.size(); e++) {
+                System.out.println(collect.key(e));
             }
+        }
 
-            char[] wordsChar = temp.toCharArray();
-//            int length = temp.length();
-//            char[] wordsChar = new char[length];
-//            //把单词改成char【】形式进行算法运算
-//            for (int i = 0; i < length; ++i) {
-//                wordsChar[i] = temp.charAt(i);
-//            }
-            s.add(wordsChar, wordsChar.length);
-            s.stem();
-            temp = s.toString();
-            //如果这个词和他的词根在result里面从未存过，新建node存入
-            if (!checkWordIsExistInArray(result, word, temp, num)) {
-                // 词根-词根下的词-词根频率
-                result.add(new Node(temp, new NodeWord(word, num), 1));
-            }
+        //储存结果 按词根/词建立索引, 多线程求词根, 每个线程使用自己的 PorterStemmer
+        ParallelStemmer stemmer = new ParallelStemmer(irregular, Runtime.getRuntime().availableProcessors());
+        StemIndex index;
+        try {
+            index = stemmer.stem(collect, metrics);
+        } finally {
+            stemmer.shutdown();
         }
+        metrics.setStems(index.stemCount());
 
 //        //过一遍所有的词，用算法把词根求出，并存入result
 //        for (String word : wordList) {
@@ -704,10 +799,22 @@ class PorterStemmer {
 //            }
 //        }
 
-        result.sort(Comparator.comparing(Node::getStem));
-        //用write方法写入Excel
-        FileUtils.makeExcel(result);
+        ArrayList<Node> result = index.toList();
+        metrics.time(Stage.SORT, () -> result.sort(Comparator.comparing(Node::getStem)));
+        //用write方法写入Excel, 超过 .xls 行数上限时改为流式写 .xlsx
+        metrics.time(Stage.WRITE, () -> {
+            if (FileUtils.rowCount(result) <= FileUtils.XLS_MAX_ROWS) {
+                FileUtils.makeExcel(result);
+            } else {
+                FileUtils.makeXlsx(result, new File(PorterStemmer.class.getClassLoader().getResource("").getPath(), "result-all(copy)1.xlsx"));
+            }
+        });
 
         System.out.println("used seconds " + (System.currentTimeMillis() - startTime) / 1000);
+
+        //结束时的指标报告
+        metrics.finish();
+        metrics.writeJson(new File(PorterStemmer.class.getClassLoader().getResource("").getPath(), "metrics.json"));
+        metrics.unregister();
     }
 }
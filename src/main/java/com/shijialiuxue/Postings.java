@@ -0,0 +1,143 @@
+package com.shijialiuxue;
+
+import java.util.Arrays;
+
+/**
+ * 压缩的文档倒排表: (文档编号, 次数) 序列
+ * 文档编号递增, 存与上一个文档编号的差值, 差值和次数都是 varint,
+ * 常见情况下每个文档只占 2 个字节
+ *
+ * 同一个文档可以连续 add 多次 (一个词根下的多个词), 最后一个文档先不编码, 次数累加完再写入
+ */
+public class Postings {
+
+    /**
+     * 依次接收 (文档编号, 次数)
+     */
+    public interface Consumer {
+        void accept(int doc, int count);
+    }
+
+    private byte[] data = new byte[4];
+    private int length;
+
+    /**
+     * 最后一个已编码的文档编号
+     */
+    private int lastDoc;
+
+    /**
+     * 还未编码的文档, -1 表示没有
+     */
+    private int pendingDoc = -1;
+    private int pendingCount;
+
+    private int docFrequency;
+
+    /**
+     * 文档 doc 中出现 count 次, doc 不能小于之前加过的文档编号
+     */
+    public void add(int doc, int count) {
+        if (doc == pendingDoc) {
+            pendingCount += count;
+            return;
+        }
+        if (doc < pendingDoc) {
+            throw new IllegalArgumentException("doc " + doc + " added after doc " + pendingDoc);
+        }
+        flush();
+        pendingDoc = doc;
+        pendingCount = count;
+        docFrequency++;
+    }
+
+    /**
+     * 出现过的文档数
+     */
+    public int docFrequency() {
+        return docFrequency;
+    }
+
+    /**
+     * 在文档 doc 中的次数, 没有出现返回0
+     */
+    public int count(int doc) {
+        if (doc == pendingDoc) {
+            return pendingCount;
+        }
+        int pos = 0;
+        int current = 0;
+        while (pos < length) {
+            long delta = readVarint(pos);
+            current += (int) (delta >>> 32);
+            long count = readVarint((int) delta);
+            pos = (int) count;
+            if (current == doc) {
+                return (int) (count >>> 32);
+            }
+            if (current > doc) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 按文档编号顺序遍历
+     */
+    public void forEach(Consumer consumer) {
+        int pos = 0;
+        int current = 0;
+        while (pos < length) {
+            long delta = readVarint(pos);
+            current += (int) (delta >>> 32);
+            long count = readVarint((int) delta);
+            pos = (int) count;
+            consumer.accept(current, (int) (count >>> 32));
+        }
+        if (pendingDoc >= 0) {
+            consumer.accept(pendingDoc, pendingCount);
+        }
+    }
+
+    /**
+     * 编码后占用的字节数
+     */
+    public int byteSize() {
+        return length;
+    }
+
+    private void flush() {
+        if (pendingDoc < 0) {
+            return;
+        }
+        writeVarint(pendingDoc - lastDoc);
+        writeVarint(pendingCount);
+        lastDoc = pendingDoc;
+    }
+
+    /**
+     * 从 pos 读一个 varint, 高32位是值, 低32位是下一个位置
+     */
+    private long readVarint(int pos) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[pos++];
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return ((long) value << 32) | pos;
+            }
+        }
+    }
+
+    private void writeVarint(int v) {
+        if (length + 5 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+        }
+        while ((v & ~0x7f) != 0) {
+            data[length++] = (byte) ((v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        data[length++] = (byte) v;
+    }
+}
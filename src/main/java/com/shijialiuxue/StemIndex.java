@@ -0,0 +1,240 @@
+package com.shijialiuxue;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 词根聚合索引
+ * 按 词根 和 词 建立hash索引, 替代 checkWordIsExistInArray 中对 result 的线性扫描
+ * 新增/累加 都是 O(1)
+ */
+public class StemIndex {
+
+    /**
+     * 保存文件的开头标记和版本
+     */
+    private static final int MAGIC = 0x57585349;
+    private static final int VERSION = 1;
+
+    /**
+     * 词根 -> 词根节点
+     */
+    private final Map<String, Node> stems = new HashMap<>();
+
+    /**
+     * 词 -> 词节点
+     */
+    private final Map<String, NodeWord> words = new HashMap<>();
+
+    /**
+     * 词 -> 所在的词根节点
+     */
+    private final Map<String, Node> wordNodes = new HashMap<>();
+
+    /**
+     * 按插入顺序保存的词根节点, 与原来的 result 顺序一致
+     */
+    private final List<Node> nodes = new ArrayList<>();
+
+    /**
+     * 增量维护的高频词根, 没有开启时为null
+     */
+    private TopStemTracker topStems;
+
+    /**
+     * 新增或累加一个词
+     * @param word 单词
+     * @param stem 单词词根
+     * @param num 单词出现次数
+     */
+    public void add(String word, String stem, int num) {
+        //如果这个词已经存在, 则词和词根频率都加num
+        NodeWord nodeWord = words.get(word);
+        if (nodeWord != null) {
+            nodeWord.increment(num);
+            Node node = wordNodes.get(word);
+            node.increment(num);
+            updateTop(node);
+            return;
+        }
+        nodeWord = new NodeWord(word, num);
+        words.put(word, nodeWord);
+
+        //如果这个词本身不存在，但是他的词根存在，那么词根频率加num，并且把这个词存在词根里
+        Node node = stems.get(stem);
+        if (node != null) {
+            node.getWordList().add(nodeWord);
+            node.increment(num);
+        } else {
+            // 词根-词根下的词-词根频率
+            node = new Node(stem, nodeWord, num);
+            stems.put(stem, node);
+            nodes.add(node);
+        }
+        wordNodes.put(word, node);
+        updateTop(node);
+    }
+
+    private void updateTop(Node node) {
+        if (topStems != null) {
+            topStems.update(node);
+        }
+    }
+
+    /**
+     * 开启增量维护频率最高的 k 个词根, 之后 add/merge 时同步更新
+     */
+    public void trackTopStems(int k) {
+        topStems = new TopStemTracker(k);
+        for (Node node : nodes) {
+            topStems.update(node);
+        }
+    }
+
+    /**
+     * 频率最高的 k 个词根, 从高到低
+     * 已开启增量维护且 k 不超过维护的个数时直接取, 否则扫描一遍所有词根
+     */
+    public List<Node> topStems(int k) {
+        if (topStems != null && k <= topStems.getK()) {
+            List<Node> top = topStems.top();
+            return top.size() > k ? new ArrayList<>(top.subList(0, k)) : top;
+        }
+        return TopK.topStems(nodes, k);
+    }
+
+    /**
+     * 按顺序把另一个索引的词合并进来, 结果与把这些词依次 add 进来相同
+     */
+    public void merge(StemIndex other) {
+        for (Node node : other.nodes) {
+            for (NodeWord nodeWord : node.getWordList()) {
+                add(nodeWord.getWord(), node.getStem(), nodeWord.getFrequency());
+            }
+        }
+    }
+
+    /**
+     * 直接放入一个已经聚合好的词根节点, 不改变任何频率 (读取保存的结果时使用)
+     */
+    private void put(Node node) {
+        stems.put(node.getStem(), node);
+        nodes.add(node);
+        updateTop(node);
+        for (NodeWord nodeWord : node.getWordList()) {
+            words.put(nodeWord.getWord(), nodeWord);
+            wordNodes.put(nodeWord.getWord(), node);
+        }
+    }
+
+    /**
+     * 保存到文件, 先写临时文件再替换, 中途失败不会破坏原文件
+     */
+    public void save(File file) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(nodes.size());
+            for (Node node : nodes) {
+                out.writeUTF(node.getStem());
+                out.writeInt(node.getFrequency());
+                out.writeInt(node.getWordList().size());
+                for (NodeWord nodeWord : node.getWordList()) {
+                    out.writeUTF(nodeWord.getWord());
+                    out.writeInt(nodeWord.getFrequency());
+                }
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 读取 save 保存的文件
+     */
+    public static StemIndex load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("not a stem index file: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported stem index version " + version + ": " + file);
+            }
+            StemIndex index = new StemIndex();
+            int nodeCount = in.readInt();
+            for (int n = 0; n < nodeCount; n++) {
+                String stem = in.readUTF();
+                int frequency = in.readInt();
+                int wordCount = in.readInt();
+                Node node = null;
+                for (int w = 0; w < wordCount; w++) {
+                    NodeWord nodeWord = new NodeWord(in.readUTF(), in.readInt());
+                    if (node == null) {
+                        node = new Node(stem, nodeWord, frequency);
+                    } else {
+                        node.getWordList().add(nodeWord);
+                    }
+                }
+                if (node != null) {
+                    index.put(node);
+                }
+            }
+            return index;
+        }
+    }
+
+    /**
+     * 根据词根取节点, 不存在返回null
+     */
+    public Node getNode(String stem) {
+        return stems.get(stem);
+    }
+
+    /**
+     * 根据词取词节点, 不存在返回null
+     */
+    public NodeWord getNodeWord(String word) {
+        return words.get(word);
+    }
+
+    /**
+     * 根据词取所在的词根节点, 不存在返回null
+     */
+    public Node getNodeByWord(String word) {
+        return wordNodes.get(word);
+    }
+
+    /**
+     * 词根个数
+     */
+    public int stemCount() {
+        return nodes.size();
+    }
+
+    /**
+     * 不同词个数
+     */
+    public int wordCount() {
+        return words.size();
+    }
+
+    /**
+     * 转成 result list (插入顺序), 排序由调用方决定
+     */
+    public ArrayList<Node> toList() {
+        return new ArrayList<>(nodes);
+    }
+}
@@ -0,0 +1,172 @@
+package com.shijialiuxue;
+
+import com.shijialiuxue.cache.StemCache;
+import com.shijialiuxue.util.Tokenizer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 常驻的本地求词根服务
+ * 启动时读一次不规则变化表 (以及可选的已保存结果), 之后通过本机 HTTP 接口处理请求,
+ * 不用每次都重新启动 JVM、解析 irregular.xls 和等待 JIT 预热
+ *
+ * POST /stem   请求体是一批单词或一段原文, 按 Tokenizer 分词后每个单词返回一行:
+ *              单词 \t 词根 \t 不规则变化的原形(没有为空) \t 词根在已保存结果中的频率(没有为0)
+ * GET  /health 返回 ok
+ *
+ * 请求由固定大小的线程池处理, 每个线程使用自己的 PorterStemmer, 词根缓存在线程之间共享
+ *
+ * 小请求/响应需要关掉 Nagle, 否则和客户端的延迟 ACK 叠加, 每个请求固定多出约40ms.
+ * JDK 的 HttpServer 只能通过全局属性 sun.net.httpserver.nodelay 设置, 而且只在它的类初始化之前设置才有效,
+ * main 会在启动前设置; 在其他程序中嵌入本服务时, 启动 JVM 时加上 -Dsun.net.httpserver.nodelay=true
+ */
+public class StemService {
+
+    /**
+     * 默认端口
+     */
+    public static final int DEFAULT_PORT = 8086;
+
+    /**
+     * 关掉 Nagle 的系统属性
+     */
+    public static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final IrregularIndex irregular;
+    private final WordStemmer stemmer;
+    private final StemIndex families;
+    private final int threads;
+
+    private final ThreadLocal<PorterStemmer> porter = ThreadLocal.withInitial(PorterStemmer::new);
+    private final ThreadLocal<Tokenizer> tokenizer = ThreadLocal.withInitial(Tokenizer::new);
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param irregular 不规则变化索引
+     * @param cache 词根缓存, 可以为null
+     * @param families 已保存的聚合结果, 用于返回词根频率, 可以为null
+     * @param threads 处理请求的线程数
+     */
+    public StemService(IrregularIndex irregular, StemCache cache, StemIndex families, int threads) {
+        this.irregular = irregular;
+        this.stemmer = new WordStemmer(irregular, cache);
+        this.families = families;
+        this.threads = threads;
+    }
+
+    /**
+     * 在本机地址上启动
+     * @param port 端口, 0 表示任选一个空闲端口
+     * @return 实际监听的地址
+     */
+    public InetSocketAddress start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 128);
+        server.createContext("/stem", this::handleStem);
+        server.createContext("/health", exchange -> respond(exchange, 200, "ok\n"));
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.start();
+        return server.getAddress();
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdown();
+            try {
+                executor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 处理一批单词, 每个单词一行
+     */
+    public String stemBatch(CharSequence text) {
+        List<String> words = new ArrayList<>();
+        tokenizer.get().tokenize(text, words);
+        PorterStemmer stemmerForThread = porter.get();
+        StringBuilder sb = new StringBuilder(words.size() * 32);
+        for (String word : words) {
+            String base = irregular.find(word);
+            String stem = stemmer.stem(stemmerForThread, word);
+            Node node = families == null ? null : families.getNode(stem);
+            sb.append(word).append('\t')
+                    .append(stem).append('\t')
+                    .append(base == null ? "" : base).append('\t')
+                    .append(node == null ? 0 : node.getFrequency()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private void handleStem(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "POST only\n");
+                return;
+            }
+            String body = read(exchange.getRequestBody());
+            respond(exchange, 200, stemBatch(body));
+        } catch (RuntimeException e) {
+            respond(exchange, 500, e + "\n");
+        }
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = in.read(buf)) > 0) {
+            out.write(buf, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    /**
+     * 参数: [端口] [IncrementalIngest 保存的结果文件]
+     */
+    public static void main(String[] args) throws Exception {
+        //必须在创建 HttpServer 之前, 命令行已经指定时不覆盖
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        StemIndex families = args.length > 1 ? StemIndex.load(new File(args[1])) : null;
+
+        File irregularFile = new File(PorterStemmer.class.getClassLoader().getResource(PorterStemmer.irregularFilePath).getPath());
+        IrregularIndex irregular = IrregularIndex.load(irregularFile);
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        StemService service = new StemService(irregular, new StemCache(100000), families, threads);
+        InetSocketAddress address = service.start(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(service::stop));
+        System.out.println("stem service listening on http://" + address.getHostString() + ":" + address.getPort() + "/stem");
+    }
+}
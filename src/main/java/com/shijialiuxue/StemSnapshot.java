@@ -0,0 +1,550 @@
+package com.shijialiuxue;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 词根结果的紧凑二进制快照
+ *
+ * 文件由两部分词典组成, 都按 UTF-8 字节排序, 每 BLOCK_SIZE 个条目一块, 块内前缀压缩 (front coding),
+ * 数字都是 varint:
+ * <pre>
+ * 头部    magic version stemCount wordCount blockSize stemBlocks wordBlocks stemIndexPos wordIndexPos (int)
+ * 词根    [共同前缀长度][后缀长度][后缀] [词根频率][词个数] { [与前一个词的共同前缀长度][后缀长度][后缀][词频] }...
+ * 单词    [共同前缀长度][后缀长度][后缀] [词根序号][词频]
+ * 索引    每块第一个条目的位置 (int)
+ * </pre>
+ * 词根下的词保持原来的顺序, 第一个词与词根比较前缀
+ *
+ * open 之后文件被内存映射, 查询时只解码二分查找经过的块首和目标所在的块, 不会把整个文件反序列化
+ */
+public class StemSnapshot {
+
+    private static final int MAGIC = 0x57585353;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 9 * 4;
+
+    /**
+     * 每块条目数
+     */
+    public static final int BLOCK_SIZE = 16;
+
+    private final ByteBuffer buffer;
+    private final int stemCount;
+    private final int wordCount;
+    private final int blockSize;
+    private final int stemBlocks;
+    private final int wordBlocks;
+    private final int stemIndexPos;
+    private final int wordIndexPos;
+
+    private StemSnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("not a stem snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("unsupported stem snapshot version " + buffer.getInt(4));
+        }
+        this.stemCount = buffer.getInt(8);
+        this.wordCount = buffer.getInt(12);
+        this.blockSize = buffer.getInt(16);
+        this.stemBlocks = buffer.getInt(20);
+        this.wordBlocks = buffer.getInt(24);
+        this.stemIndexPos = buffer.getInt(28);
+        this.wordIndexPos = buffer.getInt(32);
+        checkHeader();
+    }
+
+    /**
+     * 头部的数字要与文件大小一致, 否则查询时才会越界
+     */
+    private void checkHeader() throws IOException {
+        if (blockSize <= 0 || stemCount < 0 || wordCount < 0) {
+            throw new IOException("corrupt stem snapshot: blockSize " + blockSize
+                    + ", stemCount " + stemCount + ", wordCount " + wordCount);
+        }
+        if (stemBlocks != (stemCount + (long) blockSize - 1) / blockSize
+                || wordBlocks != (wordCount + (long) blockSize - 1) / blockSize) {
+            throw new IOException("corrupt stem snapshot: " + stemBlocks + "/" + wordBlocks + " blocks for "
+                    + stemCount + "/" + wordCount + " entries");
+        }
+        if (stemIndexPos < HEADER_SIZE || wordIndexPos < stemIndexPos + stemBlocks * 4L
+                || wordIndexPos + wordBlocks * 4L > buffer.limit()) {
+            throw new IOException("corrupt stem snapshot: index at " + stemIndexPos + "/" + wordIndexPos
+                    + " in " + buffer.limit() + " bytes");
+        }
+    }
+
+    /**
+     * 内存映射打开快照文件
+     */
+    public static StemSnapshot open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("stem snapshot larger than 2GB: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new StemSnapshot(buffer);
+        }
+    }
+
+    /**
+     * 写快照文件, 先写到旁边的 .tmp 文件, 完成后替换目标文件
+     * @param result 词根结果, 顺序不限
+     */
+    public static void write(List<Node> result, File file) throws IOException {
+        //词根按 UTF-8 字节排序
+        int stemCount = result.size();
+        byte[][] stemBytes = new byte[stemCount][];
+        Integer[] stemOrder = new Integer[stemCount];
+        int wordCount = 0;
+        for (int n = 0; n < stemCount; n++) {
+            stemBytes[n] = utf8(result.get(n).getStem());
+            stemOrder[n] = n;
+            wordCount += result.get(n).getWordList().size();
+        }
+        Arrays.sort(stemOrder, Comparator.comparing(n -> stemBytes[n], StemSnapshot::compare));
+
+        //单词按 UTF-8 字节排序, 记下所在词根的序号
+        byte[][] wordBytes = new byte[wordCount][];
+        int[] wordStem = new int[wordCount];
+        int[] wordFrequency = new int[wordCount];
+        int w = 0;
+        for (int ord = 0; ord < stemCount; ord++) {
+            for (NodeWord nodeWord : result.get(stemOrder[ord]).getWordList()) {
+                wordBytes[w] = utf8(nodeWord.getWord());
+                wordStem[w] = ord;
+                wordFrequency[w] = nodeWord.getFrequency();
+                w++;
+            }
+        }
+        Integer[] wordOrder = new Integer[wordCount];
+        for (int i = 0; i < wordCount; i++) {
+            wordOrder[i] = i;
+        }
+        Arrays.sort(wordOrder, Comparator.comparing(i -> wordBytes[i], StemSnapshot::compare));
+
+        int stemBlocks = (stemCount + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int wordBlocks = (wordCount + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int[] stemIndex = new int[stemBlocks];
+        int[] wordIndex = new int[wordBlocks];
+        int stemIndexPos;
+        int wordIndexPos;
+        //先写临时文件再替换, 正在映射旧文件的读者不会看到写了一半的文件
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Sink out = new Sink(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16))) {
+            out.write(new byte[HEADER_SIZE], 0, HEADER_SIZE);
+
+            byte[] prev = new byte[0];
+            for (int ord = 0; ord < stemCount; ord++) {
+                Node node = result.get(stemOrder[ord]);
+                byte[] stem = stemBytes[stemOrder[ord]];
+                if (ord % BLOCK_SIZE == 0) {
+                    stemIndex[ord / BLOCK_SIZE] = out.position();
+                    prev = new byte[0];
+                }
+                out.writeKey(prev, stem);
+                out.writeVarint(node.getFrequency());
+                out.writeVarint(node.getWordList().size());
+                byte[] prevWord = stem;
+                for (NodeWord nodeWord : node.getWordList()) {
+                    byte[] word = utf8(nodeWord.getWord());
+                    out.writeKey(prevWord, word);
+                    out.writeVarint(nodeWord.getFrequency());
+                    prevWord = word;
+                }
+                prev = stem;
+            }
+
+            prev = new byte[0];
+            for (int i = 0; i < wordCount; i++) {
+                int id = wordOrder[i];
+                if (i % BLOCK_SIZE == 0) {
+                    wordIndex[i / BLOCK_SIZE] = out.position();
+                    prev = new byte[0];
+                }
+                out.writeKey(prev, wordBytes[id]);
+                out.writeVarint(wordStem[id]);
+                out.writeVarint(wordFrequency[id]);
+                prev = wordBytes[id];
+            }
+
+            stemIndexPos = out.position();
+            for (int pos : stemIndex) {
+                out.writeInt(pos);
+            }
+            wordIndexPos = out.position();
+            for (int pos : wordIndex) {
+                out.writeInt(pos);
+            }
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw")) {
+            raf.writeInt(MAGIC);
+            raf.writeInt(VERSION);
+            raf.writeInt(stemCount);
+            raf.writeInt(wordCount);
+            raf.writeInt(BLOCK_SIZE);
+            raf.writeInt(stemBlocks);
+            raf.writeInt(wordBlocks);
+            raf.writeInt(stemIndexPos);
+            raf.writeInt(wordIndexPos);
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 词根个数
+     */
+    public int stemCount() {
+        return stemCount;
+    }
+
+    /**
+     * 单词个数
+     */
+    public int wordCount() {
+        return wordCount;
+    }
+
+    /**
+     * 查词根, 不存在返回null
+     */
+    public Node find(String stem) {
+        int ord = findStem(utf8(stem));
+        return ord < 0 ? null : get(ord);
+    }
+
+    /**
+     * 词根的频率, 不存在返回0
+     */
+    public int stemFrequency(String stem) {
+        int ord = findStem(utf8(stem));
+        if (ord < 0) {
+            return 0;
+        }
+        Cursor c = seekStem(ord);
+        return c.readVarint();
+    }
+
+    /**
+     * 第 ord 个词根 (按字节序)
+     */
+    public Node get(int ord) {
+        if (ord < 0 || ord >= stemCount) {
+            throw new IndexOutOfBoundsException("stem " + ord + " of " + stemCount);
+        }
+        Cursor c = seekStem(ord);
+        String stem = c.keyString();
+        byte[] stemKey = c.keyCopy();
+        int frequency = c.readVarint();
+        int words = c.readVarint();
+        c.setKey(stemKey);
+        Node node = null;
+        for (int w = 0; w < words; w++) {
+            c.readKey();
+            NodeWord nodeWord = new NodeWord(c.keyString(), c.readVarint());
+            if (node == null) {
+                node = new Node(stem, nodeWord, frequency);
+            } else {
+                node.getWordList().add(nodeWord);
+            }
+        }
+        return node;
+    }
+
+    /**
+     * 按字节序依次取出所有词根 (会解码整个文件, 用于导出)
+     */
+    public List<Node> toList() {
+        List<Node> result = new ArrayList<>(stemCount);
+        for (int ord = 0; ord < stemCount; ord++) {
+            result.add(get(ord));
+        }
+        return result;
+    }
+
+    /**
+     * 单词的词频, 不存在返回0
+     */
+    public int wordFrequency(String word) {
+        Cursor c = findWord(utf8(word));
+        if (c == null) {
+            return 0;
+        }
+        c.readVarint();
+        return c.readVarint();
+    }
+
+    /**
+     * 单词所在的词根, 不存在返回null
+     */
+    public String stemOf(String word) {
+        Cursor c = findWord(utf8(word));
+        if (c == null) {
+            return null;
+        }
+        c = seekStem(c.readVarint());
+        return c.keyString();
+    }
+
+    /**
+     * 二分查找词根, 返回序号, 不存在返回-1
+     */
+    private int findStem(byte[] key) {
+        int block = findBlock(key, stemIndexPos, stemBlocks);
+        if (block < 0) {
+            return -1;
+        }
+        Cursor c = new Cursor(buffer.getInt(stemIndexPos + block * 4));
+        int end = Math.min(stemCount, (block + 1) * blockSize);
+        for (int ord = block * blockSize; ord < end; ord++) {
+            c.readKey();
+            int cmp = c.compareKey(key);
+            if (cmp == 0) {
+                return ord;
+            }
+            if (cmp > 0) {
+                return -1;
+            }
+            c.skipFamily();
+        }
+        return -1;
+    }
+
+    /**
+     * 二分查找单词, 找到时返回停在词根序号前的游标, 不存在返回null
+     */
+    private Cursor findWord(byte[] key) {
+        int block = findBlock(key, wordIndexPos, wordBlocks);
+        if (block < 0) {
+            return null;
+        }
+        Cursor c = new Cursor(buffer.getInt(wordIndexPos + block * 4));
+        int end = Math.min(wordCount, (block + 1) * blockSize);
+        for (int i = block * blockSize; i < end; i++) {
+            c.readKey();
+            int cmp = c.compareKey(key);
+            if (cmp == 0) {
+                return c;
+            }
+            if (cmp > 0) {
+                return null;
+            }
+            c.readVarint();
+            c.readVarint();
+        }
+        return null;
+    }
+
+    /**
+     * 最后一个块首 <= key 的块, 没有返回-1
+     */
+    private int findBlock(byte[] key, int indexPos, int blocks) {
+        int lo = 0;
+        int hi = blocks - 1;
+        int found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            Cursor c = new Cursor(buffer.getInt(indexPos + mid * 4));
+            c.readKey();
+            if (c.compareKey(key) <= 0) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 游标停在第 ord 个词根的频率之前
+     */
+    private Cursor seekStem(int ord) {
+        int block = ord / blockSize;
+        Cursor c = new Cursor(buffer.getInt(stemIndexPos + block * 4));
+        for (int o = block * blockSize; ; o++) {
+            c.readKey();
+            if (o == ord) {
+                return c;
+            }
+            c.skipFamily();
+        }
+    }
+
+    /**
+     * 顺序解码的游标, 保存当前 key
+     */
+    private class Cursor {
+
+        private int pos;
+        private byte[] key = new byte[32];
+        private int keyLength;
+
+        Cursor(int pos) {
+            this.pos = pos;
+        }
+
+        void readKey() {
+            int prefix = readVarint();
+            int suffix = readVarint();
+            if (prefix + suffix > key.length) {
+                key = Arrays.copyOf(key, Math.max(key.length * 2, prefix + suffix));
+            }
+            for (int b = 0; b < suffix; b++) {
+                key[prefix + b] = buffer.get(pos++);
+            }
+            keyLength = prefix + suffix;
+        }
+
+        void setKey(byte[] bytes) {
+            if (bytes.length > key.length) {
+                key = new byte[bytes.length];
+            }
+            System.arraycopy(bytes, 0, key, 0, bytes.length);
+            keyLength = bytes.length;
+        }
+
+        byte[] keyCopy() {
+            return Arrays.copyOf(key, keyLength);
+        }
+
+        String keyString() {
+            return new String(key, 0, keyLength, StandardCharsets.UTF_8);
+        }
+
+        int compareKey(byte[] other) {
+            int n = Math.min(keyLength, other.length);
+            for (int b = 0; b < n; b++) {
+                int cmp = (key[b] & 0xff) - (other[b] & 0xff);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return keyLength - other.length;
+        }
+
+        /**
+         * 跳过词根频率和它下面的所有词
+         */
+        void skipFamily() {
+            readVarint();
+            int words = readVarint();
+            for (int w = 0; w < words; w++) {
+                readVarint();
+                int suffix = readVarint();
+                pos += suffix;
+                readVarint();
+            }
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buffer.get(pos++);
+                value |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+    }
+
+    /**
+     * 记录写入位置的输出
+     */
+    private static class Sink implements AutoCloseable {
+
+        private final OutputStream out;
+        private int position;
+
+        Sink(OutputStream out) {
+            this.out = out;
+        }
+
+        int position() {
+            return position;
+        }
+
+        void write(byte[] bytes, int off, int len) throws IOException {
+            out.write(bytes, off, len);
+            advance(len);
+        }
+
+        void writeInt(int v) throws IOException {
+            out.write(v >>> 24);
+            out.write(v >>> 16);
+            out.write(v >>> 8);
+            out.write(v);
+            advance(4);
+        }
+
+        void writeVarint(int v) throws IOException {
+            while ((v & ~0x7f) != 0) {
+                out.write((v & 0x7f) | 0x80);
+                v >>>= 7;
+                advance(1);
+            }
+            out.write(v);
+            advance(1);
+        }
+
+        /**
+         * 写 key 相对 prev 的共同前缀长度和后缀
+         */
+        void writeKey(byte[] prev, byte[] key) throws IOException {
+            int prefix = 0;
+            int n = Math.min(prev.length, key.length);
+            while (prefix < n && prev[prefix] == key[prefix]) {
+                prefix++;
+            }
+            writeVarint(prefix);
+            writeVarint(key.length - prefix);
+            write(key, prefix, key.length - prefix);
+        }
+
+        private void advance(int len) throws IOException {
+            if (position + (long) len > Integer.MAX_VALUE) {
+                throw new IOException("stem snapshot larger than 2GB");
+            }
+            position += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int compare(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            int cmp = (a[i] & 0xff) - (b[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return a.length - b.length;
+    }
+}
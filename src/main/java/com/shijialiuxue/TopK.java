@@ -0,0 +1,142 @@
+package com.shijialiuxue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * 取频率最高的 K 个词根/词
+ * 用大小为 K 的小顶堆扫一遍, O(n log K), 不需要对整个结果排序
+ */
+public class TopK {
+
+    /**
+     * 词根: 频率从高到低, 频率相同按词根字典序
+     */
+    public static final Comparator<Node> STEM_ORDER =
+            Comparator.<Node>reverseOrder().thenComparing(Node::getStem);
+
+    /**
+     * 词: 频率从高到低, 频率相同按词的字典序
+     */
+    public static final Comparator<NodeWord> WORD_ORDER =
+            Comparator.<NodeWord>reverseOrder().thenComparing(NodeWord::getWord);
+
+    private TopK() {
+    }
+
+    /**
+     * 频率最高的 k 个词根, 从高到低
+     */
+    public static List<Node> topStems(Iterable<Node> nodes, int k) {
+        return top(nodes, k, STEM_ORDER);
+    }
+
+    /**
+     * 词根下频率最高的 k 个词, 从高到低
+     */
+    public static List<NodeWord> topWords(Node node, int k) {
+        return top(node.getWordList(), k, WORD_ORDER);
+    }
+
+    /**
+     * 按 order 排在最前面的 k 个元素, 结果按 order 排好
+     */
+    public static <T> List<T> top(Iterable<T> items, int k, Comparator<? super T> order) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        //堆顶是当前 k 个里最靠后的
+        Comparator<? super T> reversed = Collections.reverseOrder(order);
+        PriorityQueue<T> heap = new PriorityQueue<>(Math.min(k, 1024), reversed);
+        for (T item : items) {
+            if (heap.size() < k) {
+                heap.offer(item);
+            } else if (order.compare(item, heap.peek()) < 0) {
+                heap.poll();
+                heap.offer(item);
+            }
+        }
+        List<T> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            result.add(heap.poll());
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * 次数最多的 k 个条目编号, 从多到少, 次数相同编号小的在前; 只取次数不小于 minCount 的
+     * 条目编号直接放在 int 小顶堆里, 不装箱, 额外内存只有 min(k, size) 个 int
+     * @param size 条目个数, 编号为 0..size-1
+     * @param count 条目编号 -> 次数
+     */
+    public static int[] topEntries(int size, IntUnaryOperator count, int k, int minCount) {
+        //堆顶是当前 k 个里最靠后的
+        int[] heap = new int[Math.max(0, Math.min(k, size))];
+        int heapSize = 0;
+        for (int e = 0; e < size; e++) {
+            if (count.applyAsInt(e) < minCount) {
+                continue;
+            }
+            if (heapSize < heap.length) {
+                heap[heapSize] = e;
+                siftUp(heap, heapSize++, count);
+            } else if (heapSize > 0 && worse(heap[0], e, count)) {
+                heap[0] = e;
+                siftDown(heap, 0, heapSize, count);
+            }
+        }
+        //依次取出堆顶, 从后往前放
+        int[] result = new int[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            result[i] = heap[0];
+            heap[0] = heap[i];
+            siftDown(heap, 0, i, count);
+        }
+        return result;
+    }
+
+    /**
+     * 条目 a 是否比 b 更靠后 (应该更靠近堆顶)
+     */
+    private static boolean worse(int a, int b, IntUnaryOperator count) {
+        int ca = count.applyAsInt(a);
+        int cb = count.applyAsInt(b);
+        return ca < cb || (ca == cb && a > b);
+    }
+
+    private static void siftUp(int[] heap, int i, IntUnaryOperator count) {
+        int e = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!worse(e, heap[parent], count)) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = e;
+    }
+
+    private static void siftDown(int[] heap, int i, int size, IntUnaryOperator count) {
+        int e = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && worse(heap[right], heap[child], count)) {
+                child = right;
+            }
+            if (!worse(heap[child], e, count)) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = e;
+    }
+}
@@ -0,0 +1,117 @@
+package com.shijialiuxue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 读入过程中增量维护频率最高的 K 个词根
+ *
+ * 带位置表的小顶堆, 堆顶是当前 K 个里最靠后的. 词根频率只增不减, 所以:
+ * 堆里的词根变大时只需下沉; 堆外的词根变大时和堆顶比较, 胜出就替换堆顶.
+ * 堆顶只会越来越靠前, 不在堆里的词根不可能比堆顶靠前, 结果是精确的
+ *
+ * 非线程安全, 由 StemIndex 在 add 时调用
+ */
+public class TopStemTracker {
+
+    private final int k;
+    private Node[] heap;
+    private int size;
+
+    /**
+     * 节点 -> 堆中位置
+     */
+    private final Map<Node, Integer> positions = new IdentityHashMap<>();
+
+    public TopStemTracker(int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        this.k = k;
+        this.heap = new Node[Math.min(k, 1024)];
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * 词根新增或频率增加后调用
+     */
+    public void update(Node node) {
+        Integer pos = positions.get(node);
+        if (pos != null) {
+            siftDown(pos);
+        } else if (size < k) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, Math.min(k, size * 2));
+            }
+            heap[size] = node;
+            positions.put(node, size);
+            siftUp(size++);
+        } else if (TopK.STEM_ORDER.compare(node, heap[0]) < 0) {
+            positions.remove(heap[0]);
+            heap[0] = node;
+            positions.put(node, 0);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * 当前频率最高的词根, 从高到低
+     */
+    public List<Node> top() {
+        List<Node> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(heap[i]);
+        }
+        result.sort(TopK.STEM_ORDER);
+        return result;
+    }
+
+    /**
+     * a 是否比 b 更靠后 (应该更靠近堆顶)
+     */
+    private boolean worse(Node a, Node b) {
+        return TopK.STEM_ORDER.compare(a, b) > 0;
+    }
+
+    private void siftUp(int i) {
+        Node node = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!worse(node, heap[parent])) {
+                break;
+            }
+            move(heap[parent], i);
+            i = parent;
+        }
+        move(node, i);
+    }
+
+    private void siftDown(int i) {
+        Node node = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && worse(heap[right], heap[child])) {
+                child = right;
+            }
+            if (!worse(heap[child], node)) {
+                break;
+            }
+            move(heap[child], i);
+            i = child;
+        }
+        move(node, i);
+    }
+
+    private void move(Node node, int i) {
+        heap[i] = node;
+        positions.put(node, i);
+    }
+}
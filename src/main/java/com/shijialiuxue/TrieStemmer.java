@@ -0,0 +1,179 @@
+package com.shijialiuxue;
+
+import java.util.Arrays;
+
+/**
+ * 用反向后缀 trie 匹配 step3-step5 的 PorterStemmer
+ *
+ * 原实现先按 b[k-1] (step4 按 b[k]) 分支, 再逐个 ends() 比较候选后缀, 每个候选都从头比较一遍字符.
+ * 这里把每一步的全部后缀倒序建成一棵 trie, 从 b[k] 向前只走一遍, 取最长的匹配.
+ * 原实现同一分支内的候选要么互不为后缀, 要么长的排在前面 (ational/tional, ization/ation, ement/ment/ent),
+ * 所以最长匹配就是原来第一个命中的候选, 结果与 PorterStemmer 完全相同
+ *
+ * 和 PorterStemmer 一样有状态, 非线程安全
+ */
+public class TrieStemmer extends PorterStemmer {
+
+    private static final SuffixTrie STEP3 = new SuffixTrie(
+            "ational", "ate",
+            "tional", "tion",
+            "enci", "ence",
+            "anci", "ance",
+            "izer", "ize",
+            "bli", "ble",
+            "alli", "al",
+            "entli", "ent",
+            "eli", "e",
+            "ousli", "ous",
+            "ization", "ize",
+            "ation", "ate",
+            "ator", "ate",
+            "alism", "al",
+            "iveness", "ive",
+            "fulness", "ful",
+            "ousness", "ous",
+            "aliti", "al",
+            "iviti", "ive",
+            "biliti", "ble",
+            "logi", "log");
+
+    private static final SuffixTrie STEP4 = new SuffixTrie(
+            "icate", "ic",
+            "ative", "",
+            "alize", "al",
+            "iciti", "ic",
+            "ical", "ic",
+            "ful", "",
+            "ness", "");
+
+    private static final SuffixTrie STEP5 = new SuffixTrie(
+            "al", "",
+            "ance", "",
+            "ence", "",
+            "er", "",
+            "ic", "",
+            "able", "",
+            "ible", "",
+            "ant", "",
+            "ement", "",
+            "ment", "",
+            "ent", "",
+            "ion", "",
+            "ou", "",
+            "ism", "",
+            "ate", "",
+            "iti", "",
+            "ous", "",
+            "ive", "",
+            "ize", "");
+
+    /**
+     * step5 中 -ion 只在前面是 s 或 t 时去掉
+     */
+    private static final int STEP5_ION = 11;
+
+    @Override
+    protected void step3() {
+        if (k == 0) return; /* For Bug 1 */
+        int rule = STEP3.match(b, k);
+        if (rule >= 0) {
+            j = k - STEP3.length(rule);
+            r(STEP3.replacement(rule));
+        }
+    }
+
+    @Override
+    protected void step4() {
+        int rule = STEP4.match(b, k);
+        if (rule >= 0) {
+            j = k - STEP4.length(rule);
+            r(STEP4.replacement(rule));
+        }
+    }
+
+    @Override
+    protected void step5() {
+        if (k == 0) return; /* for Bug 1 */
+        int rule = STEP5.match(b, k);
+        if (rule < 0) return;
+        j = k - STEP5.length(rule);
+        /* j >= 0 fixes Bug 2 */
+        if (rule == STEP5_ION && !(j >= 0 && (b[j] == 's' || b[j] == 't'))) return;
+        if (m() > 1) k = j;
+    }
+
+    /**
+     * 一组后缀倒序建成的 trie, 只处理 a-z
+     * 节点 n 的子节点存在 next[n * 26 + c], 0 表示没有 (根节点是0, 不会是任何节点的子节点)
+     */
+    static final class SuffixTrie {
+
+        private int[] next = new int[26 * 16];
+        private int[] rules = new int[16];
+        private int nodes = 1;
+
+        private final int[] lengths;
+        private final char[][] replacements;
+
+        /**
+         * @param pairs 后缀, 替换, 后缀, 替换 ...; 规则编号按出现顺序
+         */
+        SuffixTrie(String... pairs) {
+            int count = pairs.length / 2;
+            lengths = new int[count];
+            replacements = new char[count][];
+            Arrays.fill(rules, -1);
+            for (int rule = 0; rule < count; rule++) {
+                String suffix = pairs[rule * 2];
+                lengths[rule] = suffix.length();
+                replacements[rule] = pairs[rule * 2 + 1].toCharArray();
+                int node = 0;
+                for (int c = suffix.length() - 1; c >= 0; c--) {
+                    int slot = node * 26 + (suffix.charAt(c) - 'a');
+                    if (next[slot] == 0) {
+                        //newNode 可能扩容 next, 先取得编号再写入
+                        int child = newNode();
+                        next[slot] = child;
+                    }
+                    node = next[slot];
+                }
+                if (rules[node] < 0) {
+                    rules[node] = rule;
+                }
+            }
+        }
+
+        /**
+         * 从 b[k] 向前匹配, 返回 b[0..k] 结尾最长的后缀的规则编号, 没有返回-1
+         */
+        int match(char[] b, int k) {
+            int node = 0;
+            int best = -1;
+            for (int i = k; i >= 0; i--) {
+                int c = b[i] - 'a';
+                if (c < 0 || c >= 26) break;
+                node = next[node * 26 + c];
+                if (node == 0) break;
+                if (rules[node] >= 0) best = rules[node];
+            }
+            return best;
+        }
+
+        int length(int rule) {
+            return lengths[rule];
+        }
+
+        char[] replacement(int rule) {
+            return replacements[rule];
+        }
+
+        private int newNode() {
+            if (nodes == rules.length) {
+                next = Arrays.copyOf(next, next.length * 2);
+                rules = Arrays.copyOf(rules, rules.length * 2);
+                Arrays.fill(rules, nodes, rules.length, -1);
+            }
+            return nodes++;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.shijialiuxue;
+
+import com.shijialiuxue.cache.StemCache;
+
+/**
+ * 单个单词求词根: 先查不规则变化表, 再用 Porter 算法
+ * 可选的 StemCache 在多个线程之间共享, 高频词直接命中
+ *
+ * 不规则变化表只读, 缓存线程安全, 所以一个实例可以被多个线程同时使用;
+ * PorterStemmer 有状态, 由调用方每个线程各自提供
+ */
+public class WordStemmer {
+
+    private final IrregularIndex irregular;
+
+    /**
+     * 词根缓存, 可以为null
+     */
+    private final StemCache cache;
+
+    /**
+     * @param irregular 不规则变化索引
+     */
+    public WordStemmer(IrregularIndex irregular) {
+        this(irregular, null);
+    }
+
+    /**
+     * @param irregular 不规则变化索引
+     * @param cache 词根缓存, 为null时不缓存
+     */
+    public WordStemmer(IrregularIndex irregular, StemCache cache) {
+        this.irregular = irregular;
+        this.cache = cache;
+    }
+
+    /**
+     * 单词的词根
+     * @param porter 当前线程的 PorterStemmer
+     */
+    public String stem(PorterStemmer porter, String word) {
+        if (cache != null) {
+            return cache.get(word, w -> stemUncached(porter, w));
+        }
+        return stemUncached(porter, word);
+    }
+
+    private String stemUncached(PorterStemmer porter, String word) {
+        String base = irregular.find(word);
+        return porter.stem(base != null ? base : word);
+    }
+
+    public IrregularIndex getIrregular() {
+        return irregular;
+    }
+
+    public StemCache getCache() {
+        return cache;
+    }
+}
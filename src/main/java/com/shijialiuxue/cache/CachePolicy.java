@@ -0,0 +1,32 @@
+package com.shijialiuxue.cache;
+
+/**
+ * 缓存淘汰策略
+ * 每个实例只被 StemCache 的一个分段使用, 调用方负责加锁, 实现不需要线程安全
+ */
+public interface CachePolicy {
+
+    /**
+     * 取缓存的值, 不存在返回null, 同时记录一次访问
+     */
+    String get(String key);
+
+    /**
+     * 放入缓存
+     * @return 因此被淘汰 (或未被接纳) 的条目数
+     */
+    int put(String key, String value);
+
+    /**
+     * 当前条目数
+     */
+    int size();
+
+    /**
+     * 创建指定容量的策略实例
+     */
+    interface Factory {
+
+        CachePolicy create(int capacity);
+    }
+}
@@ -0,0 +1,40 @@
+package com.shijialiuxue.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU 淘汰, 基于按访问顺序排列的 LinkedHashMap
+ */
+public class LruPolicy implements CachePolicy {
+
+    private final int capacity;
+
+    private final LinkedHashMap<String, String> map;
+
+    public LruPolicy(int capacity) {
+        this.capacity = capacity;
+        this.map = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    @Override
+    public String get(String key) {
+        return map.get(key);
+    }
+
+    @Override
+    public int put(String key, String value) {
+        map.put(key, value);
+        if (map.size() <= capacity) {
+            return 0;
+        }
+        Map.Entry<String, String> eldest = map.entrySet().iterator().next();
+        map.remove(eldest.getKey());
+        return 1;
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+}
@@ -0,0 +1,106 @@
+package com.shijialiuxue.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 有界的并发 单词 -> 词根 缓存
+ * 按单词 hash 分成若干段, 每段各自加锁并持有一个淘汰策略实例 (LRU 或 TinyLFU),
+ * 高频词命中后直接返回, 不再走 PorterStemmer 的 step1-step6
+ */
+public class StemCache {
+
+    /**
+     * TinyLFU 策略, 默认使用
+     */
+    public static final CachePolicy.Factory TINY_LFU = TinyLfuPolicy::new;
+
+    /**
+     * LRU 策略
+     */
+    public static final CachePolicy.Factory LRU = LruPolicy::new;
+
+    private final CachePolicy[] segments;
+
+    private final int mask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public StemCache(int capacity) {
+        this(capacity, TINY_LFU);
+    }
+
+    /**
+     * @param capacity 最多缓存的单词数
+     * @param factory 淘汰策略
+     */
+    public StemCache(int capacity, CachePolicy.Factory factory) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        int count = Integer.highestOneBit(Math.max(1, Math.min(capacity / 64, Runtime.getRuntime().availableProcessors() * 4)));
+        this.segments = new CachePolicy[count];
+        for (int s = 0; s < count; s++) {
+            segments[s] = factory.create(capacity / count + (s < capacity % count ? 1 : 0));
+        }
+        this.mask = count - 1;
+    }
+
+    /**
+     * 取单词的词根, 未命中时用 loader 计算并放入缓存
+     * loader 在锁外执行, 同一个单词并发未命中时可能计算多次
+     */
+    public String get(String word, Function<String, String> loader) {
+        CachePolicy segment = segmentFor(word);
+        String stem;
+        synchronized (segment) {
+            stem = segment.get(word);
+        }
+        if (stem != null) {
+            hits.increment();
+            return stem;
+        }
+        misses.increment();
+        stem = loader.apply(word);
+        int evicted;
+        synchronized (segment) {
+            evicted = segment.put(word, stem);
+        }
+        if (evicted > 0) {
+            evictions.add(evicted);
+        }
+        return stem;
+    }
+
+    /**
+     * 当前缓存的单词数
+     */
+    public int size() {
+        int size = 0;
+        for (CachePolicy segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private CachePolicy segmentFor(String word) {
+        int h = word.hashCode();
+        return segments[(h ^ (h >>> 16)) & mask];
+    }
+}
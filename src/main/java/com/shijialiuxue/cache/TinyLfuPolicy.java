@@ -0,0 +1,131 @@
+package com.shijialiuxue.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * W-TinyLFU 风格的淘汰策略
+ * 新条目先进入很小的 LRU 窗口, 从窗口淘汰出来的条目要和主区的 LRU 末尾比较访问频率,
+ * 频率更高才能进入主区. 频率由 4 行的 count-min sketch 估计, 计数满一定次数后整体减半,
+ * 让过去的热词逐渐冷却. 对 Zipf 分布的单词, 高频词不会被一次性扫过的低频词冲掉
+ */
+public class TinyLfuPolicy implements CachePolicy {
+
+    private static final int[] SEEDS = {0x97cb3127, 0xbe9f1e31, 0x5f356495, 0x8f5d1e63};
+
+    private final LinkedHashMap<String, String> window;
+    private final LinkedHashMap<String, String> main;
+    private final int windowCapacity;
+    private final int mainCapacity;
+
+    /**
+     * count-min sketch, 每个计数最大15
+     */
+    private final byte[][] counters;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    public TinyLfuPolicy(int capacity) {
+        this.windowCapacity = Math.max(1, capacity / 100);
+        this.mainCapacity = Math.max(0, capacity - windowCapacity);
+        this.window = new LinkedHashMap<>(16, 0.75f, true);
+        this.main = new LinkedHashMap<>(16, 0.75f, true);
+        int width = Integer.highestOneBit(Math.max(16, capacity) - 1) << 1;
+        this.counters = new byte[SEEDS.length][width];
+        this.mask = width - 1;
+        this.sampleSize = Math.max(16, capacity) * 10;
+    }
+
+    @Override
+    public String get(String key) {
+        increment(key);
+        String value = window.get(key);
+        return value != null ? value : main.get(key);
+    }
+
+    @Override
+    public int put(String key, String value) {
+        if (main.containsKey(key)) {
+            main.put(key, value);
+            return 0;
+        }
+        window.put(key, value);
+        if (window.size() <= windowCapacity) {
+            return 0;
+        }
+        //窗口满了, 最久未访问的条目作为候选进入主区
+        Iterator<Map.Entry<String, String>> it = window.entrySet().iterator();
+        Map.Entry<String, String> candidate = it.next();
+        it.remove();
+        if (main.size() < mainCapacity) {
+            main.put(candidate.getKey(), candidate.getValue());
+            return 0;
+        }
+        if (mainCapacity > 0) {
+            Iterator<Map.Entry<String, String>> victims = main.entrySet().iterator();
+            Map.Entry<String, String> victim = victims.next();
+            if (frequency(candidate.getKey()) > frequency(victim.getKey())) {
+                victims.remove();
+                main.put(candidate.getKey(), candidate.getValue());
+            }
+        }
+        return 1;
+    }
+
+    @Override
+    public int size() {
+        return window.size() + main.size();
+    }
+
+    /**
+     * 估计的访问频率
+     */
+    int frequency(String key) {
+        int h = spread(key.hashCode());
+        int min = Integer.MAX_VALUE;
+        for (int r = 0; r < SEEDS.length; r++) {
+            min = Math.min(min, counters[r][index(h, r)]);
+        }
+        return min;
+    }
+
+    private void increment(String key) {
+        int h = spread(key.hashCode());
+        boolean added = false;
+        for (int r = 0; r < SEEDS.length; r++) {
+            int idx = index(h, r);
+            if (counters[r][idx] < 15) {
+                counters[r][idx]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * 计数整体减半
+     */
+    private void reset() {
+        for (byte[] row : counters) {
+            for (int c = 0; c < row.length; c++) {
+                row[c] = (byte) (row[c] >>> 1);
+            }
+        }
+        additions >>>= 1;
+    }
+
+    private int index(int h, int row) {
+        int x = h * SEEDS[row];
+        return (x ^ (x >>> 16)) & mask;
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x45d9f3b;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,200 @@
+package com.shijialiuxue.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 流水线指标: 各阶段纳秒耗时和吞吐计数
+ * 可以注册到 JMX, 也可以在结束时写成 JSON 报告
+ *
+ * 线程安全, 计时和计数都可以在多个线程里同时记录
+ */
+public class PipelineMetrics implements PipelineMetricsMXBean {
+
+    public static final String OBJECT_NAME = "com.shijialiuxue:type=PipelineMetrics";
+
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos;
+
+    private final LongAdder[] stageNanos = new LongAdder[Stage.values().length];
+
+    private final LongAdder tokens = new LongAdder();
+    private final AtomicLong distinctWords = new AtomicLong();
+    private final AtomicLong stems = new AtomicLong();
+
+    private ObjectName registeredName;
+
+    public PipelineMetrics() {
+        for (int s = 0; s < stageNanos.length; s++) {
+            stageNanos[s] = new LongAdder();
+        }
+    }
+
+    /**
+     * 执行 action 并把耗时记到 stage, action 抛出异常时也记录
+     */
+    public <E extends Exception> void time(Stage stage, Action<E> action) throws E {
+        long start = System.nanoTime();
+        try {
+            action.run();
+        } finally {
+            record(stage, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 执行 task 并把耗时记到 stage, 返回 task 的结果
+     */
+    public <T, E extends Exception> T time(Stage stage, Task<T, E> task) throws E {
+        long start = System.nanoTime();
+        try {
+            return task.call();
+        } finally {
+            record(stage, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 记录一个阶段的耗时
+     */
+    public void record(Stage stage, long nanos) {
+        stageNanos[stage.ordinal()].add(nanos);
+    }
+
+    public long getStageNanos(Stage stage) {
+        return stageNanos[stage.ordinal()].sum();
+    }
+
+    public void addTokens(long count) {
+        tokens.add(count);
+    }
+
+    public void setDistinctWords(long count) {
+        distinctWords.set(count);
+    }
+
+    public void setStems(long count) {
+        stems.set(count);
+    }
+
+    /**
+     * 结束计时, 之后总耗时不再变化
+     */
+    public void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    @Override
+    public Map<String, Long> getStageNanos() {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (Stage stage : Stage.values()) {
+            map.put(stage.name(), getStageNanos(stage));
+        }
+        return map;
+    }
+
+    @Override
+    public long getElapsedNanos() {
+        long end = endNanos;
+        return (end != 0 ? end : System.nanoTime()) - startNanos;
+    }
+
+    @Override
+    public long getTokens() {
+        return tokens.sum();
+    }
+
+    @Override
+    public double getTokensPerSecond() {
+        long nanos = getStageNanos(Stage.EXCEL_READ) + getStageNanos(Stage.TXT_READ);
+        return nanos == 0 ? 0 : getTokens() * 1e9 / nanos;
+    }
+
+    @Override
+    public long getDistinctWords() {
+        return distinctWords.get();
+    }
+
+    @Override
+    public long getStems() {
+        return stems.get();
+    }
+
+    /**
+     * 注册到平台 MBeanServer, 可以用 jconsole 等工具查看
+     */
+    public void register() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(this, name);
+        registeredName = name;
+    }
+
+    public void unregister() throws JMException {
+        if (registeredName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+            registeredName = null;
+        }
+    }
+
+    /**
+     * JSON 报告
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n  \"stages\": {");
+        Stage[] stages = Stage.values();
+        for (int s = 0; s < stages.length; s++) {
+            sb.append(s == 0 ? "\n" : ",\n");
+            sb.append("    \"").append(stages[s].name().toLowerCase()).append("\": ").append(getStageNanos(stages[s]));
+        }
+        sb.append("\n  },\n");
+        sb.append("  \"elapsedNanos\": ").append(getElapsedNanos()).append(",\n");
+        sb.append("  \"tokens\": ").append(getTokens()).append(",\n");
+        sb.append("  \"tokensPerSecond\": ").append(Math.round(getTokensPerSecond())).append(",\n");
+        sb.append("  \"distinctWords\": ").append(getDistinctWords()).append(",\n");
+        sb.append("  \"stems\": ").append(getStems()).append("\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * 把 JSON 报告写到文件
+     */
+    public void writeJson(File file) throws IOException {
+        try (Writer out = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8)) {
+            out.write(toJson());
+        }
+    }
+
+    /**
+     * 被计时的一段没有返回值的代码
+     */
+    @FunctionalInterface
+    public interface Action<E extends Exception> {
+        void run() throws E;
+    }
+
+    /**
+     * 被计时的一段有返回值的代码
+     */
+    @FunctionalInterface
+    public interface Task<T, E extends Exception> {
+        T call() throws E;
+    }
+}
@@ -0,0 +1,33 @@
+package com.shijialiuxue.metrics;
+
+import java.util.Map;
+
+/**
+ * 通过 JMX 查看的流水线指标
+ */
+public interface PipelineMetricsMXBean {
+
+    /**
+     * 各阶段累计耗时, 阶段名 -> 纳秒
+     */
+    Map<String, Long> getStageNanos();
+
+    /**
+     * 从创建到现在 (或 finish 时) 的总耗时, 纳秒
+     */
+    long getElapsedNanos();
+
+    /**
+     * 读入的单词总数
+     */
+    long getTokens();
+
+    /**
+     * 每秒读入的单词数, 按两个读取阶段的耗时计算
+     */
+    double getTokensPerSecond();
+
+    long getDistinctWords();
+
+    long getStems();
+}
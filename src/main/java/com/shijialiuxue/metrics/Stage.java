@@ -0,0 +1,49 @@
+package com.shijialiuxue.metrics;
+
+/**
+ * 流水线的各个阶段
+ * 分词和计数在读取时逐块完成, 计入 EXCEL_READ / TXT_READ
+ * 各阶段的耗时互不重叠, 加起来不超过总耗时
+ */
+public enum Stage {
+
+    /**
+     * 读取不规则变化表
+     */
+    IRREGULAR_LOAD,
+
+    /**
+     * 读取 Excel 文档并分词计数
+     */
+    EXCEL_READ,
+
+    /**
+     * 读取 TXT 文档并分词计数
+     */
+    TXT_READ,
+
+    /**
+     * 合并各块的单词计数, 读取TXT时穿插进行, 这部分时间不计入 TXT_READ
+     */
+    GROUP,
+
+    /**
+     * 并行求词根 (含每段内的聚合)
+     */
+    STEM,
+
+    /**
+     * 按顺序合并各段的聚合结果
+     */
+    AGGREGATE,
+
+    /**
+     * 结果按词根排序
+     */
+    SORT,
+
+    /**
+     * 写结果文件
+     */
+    WRITE
+}
@@ -0,0 +1,125 @@
+package com.shijialiuxue.sketch;
+
+/**
+ * 保守更新 (conservative update) 的 Count-Min Sketch
+ * depth 行, 每行 width 个计数, 内存固定为 depth * width 个 long, 与输入多少无关
+ *
+ * 估计值不会小于真实值; 以至少 1 - delta 的概率, 估计值 - 真实值 <= epsilon * 总数,
+ * 其中 width = e / epsilon, depth = ln(1 / delta). 保守更新只增加到必要的值, 实际误差通常远小于这个上界
+ *
+ * 这个上界要求各行的 hash 相互独立. 不能从 String.hashCode 派生 ("Aa" 和 "BB" 的 hashCode 相同, 会在每一行都冲突),
+ * 而是对字符算一次 64 位 hash, 拆成两半 h1, h2, 第 r 行用 h1 + r * h2 (Kirsch-Mitzenmacher 双重 hash)
+ *
+ * 非线程安全
+ */
+public class CountMinSketch {
+
+    private final long[][] counters;
+    private final int width;
+    private final int mask;
+
+    private long total;
+
+    /**
+     * @param epsilon 相对总数的误差
+     * @param delta 超过误差的概率
+     */
+    public CountMinSketch(double epsilon, double delta) {
+        this(width(epsilon), (int) Math.ceil(Math.log(1 / delta)));
+    }
+
+    /**
+     * @param width 每行计数个数, 向上取为2的幂
+     * @param depth 行数
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("width and depth must be positive: " + width + ", " + depth);
+        }
+        this.width = Integer.highestOneBit(Math.max(2, width) - 1) << 1;
+        this.mask = this.width - 1;
+        this.counters = new long[depth][this.width];
+    }
+
+    private static int width(double epsilon) {
+        if (epsilon <= 0 || epsilon >= 1) {
+            throw new IllegalArgumentException("epsilon must be in (0, 1): " + epsilon);
+        }
+        return (int) Math.ceil(Math.E / epsilon);
+    }
+
+    /**
+     * 计数加 count, 返回加完之后的估计值
+     */
+    public long add(String key, long count) {
+        long h = hash(key);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        long min = Long.MAX_VALUE;
+        for (int r = 0; r < counters.length; r++) {
+            min = Math.min(min, counters[r][(h1 + r * h2) & mask]);
+        }
+        //保守更新: 每行只提高到 min + count
+        long target = min + count;
+        for (int r = 0; r < counters.length; r++) {
+            int idx = (h1 + r * h2) & mask;
+            if (counters[r][idx] < target) {
+                counters[r][idx] = target;
+            }
+        }
+        total += count;
+        return target;
+    }
+
+    /**
+     * 估计的次数
+     */
+    public long estimate(String key) {
+        long h = hash(key);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        long min = Long.MAX_VALUE;
+        for (int r = 0; r < counters.length; r++) {
+            min = Math.min(min, counters[r][(h1 + r * h2) & mask]);
+        }
+        return min;
+    }
+
+    /**
+     * 所有 add 的次数总和
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * 误差上界对应的 epsilon = e / width
+     */
+    public double getEpsilon() {
+        return Math.E / width;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return counters.length;
+    }
+
+    /**
+     * 字符的 64 位 FNV-1a, 再用 MurmurHash3 的 fmix64 打散, 高低两半都可以直接用
+     * h2 取奇数, 宽度是2的幂, 所以同一个 key 在各行的位置都是 h1 + r * h2 的不同取值
+     */
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+}
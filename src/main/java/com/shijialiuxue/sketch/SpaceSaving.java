@@ -0,0 +1,180 @@
+package com.shijialiuxue.sketch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving 高频项统计, 最多保留 capacity 个计数器
+ * 新的 key 在计数器满时替换当前最小的计数器, 继承它的次数作为误差
+ *
+ * 对每个保留的 key: count - error <= 真实次数 <= count;
+ * 真实次数大于 总数 / capacity 的 key 一定被保留
+ *
+ * 最小计数器用带位置的小顶堆维护, offer 是 O(log capacity). 非线程安全
+ */
+public class SpaceSaving {
+
+    /**
+     * 一个计数器
+     */
+    public static class Counter {
+        private final String key;
+        private long count;
+        private long error;
+        private int position;
+
+        /**
+         * 调用方可以附带的一个值, 替换计数器时清空
+         */
+        private String label;
+
+        Counter(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * 次数上界
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * 可能多算的次数, count - error 是次数下界
+         */
+        public long getError() {
+            return error;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public void setLabel(String label) {
+            this.label = label;
+        }
+    }
+
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    private final Counter[] heap;
+    private int size;
+    private long total;
+
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+        this.heap = new Counter[capacity];
+    }
+
+    /**
+     * key 出现 count 次
+     * @return key 对应的计数器
+     */
+    public Counter offer(String key, long count) {
+        total += count;
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            counter.count += count;
+            siftDown(counter.position);
+            return counter;
+        }
+        counter = new Counter(key);
+        if (size < capacity) {
+            counter.count = count;
+            heap[size] = counter;
+            counter.position = size;
+            siftUp(size++);
+        } else {
+            //替换最小的计数器
+            Counter min = heap[0];
+            counters.remove(min.key);
+            counter.count = min.count + count;
+            counter.error = min.count;
+            heap[0] = counter;
+            counter.position = 0;
+            siftDown(0);
+        }
+        counters.put(key, counter);
+        return counter;
+    }
+
+    /**
+     * key 的计数器, 没有保留返回null
+     */
+    public Counter get(String key) {
+        return counters.get(key);
+    }
+
+    /**
+     * 次数最多的 k 个计数器, 从多到少
+     */
+    public List<Counter> top(int k) {
+        List<Counter> all = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            all.add(heap[i]);
+        }
+        all.sort((a, b) -> a.count != b.count ? Long.compare(b.count, a.count) : a.key.compareTo(b.key));
+        return all.size() > k ? new ArrayList<>(all.subList(0, k)) : all;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 所有 offer 的次数总和
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    private void siftUp(int i) {
+        Counter counter = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            move(heap[parent], i);
+            i = parent;
+        }
+        move(counter, i);
+    }
+
+    private void siftDown(int i) {
+        Counter counter = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && heap[right].count < heap[child].count) {
+                child = right;
+            }
+            if (heap[child].count >= counter.count) {
+                break;
+            }
+            move(heap[child], i);
+            i = child;
+        }
+        move(counter, i);
+    }
+
+    private void move(Counter counter, int i) {
+        heap[i] = counter;
+        counter.position = i;
+    }
+}
@@ -0,0 +1,9 @@
+package com.shijialiuxue.util;
+
+/**
+ * 表格单元格回调, 按行、列的顺序给出每个文字单元格
+ */
+public interface CellHandler {
+
+    void cell(int row, int col, String text);
+}
@@ -0,0 +1,212 @@
+package com.shijialiuxue.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 通过 FileChannel 写 UTF-8 文本
+ * 字符和数字直接编码到一个复用的字节缓冲区, 写满后整块写入 channel;
+ * 不经过 Writer/CharsetEncoder, 也不为数字生成 String
+ *
+ * 非线程安全
+ */
+public class ChannelTextWriter implements Closeable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private final FileChannel channel;
+    private final byte[] bytes;
+    private final ByteBuffer buffer;
+    private int pos;
+
+    /**
+     * 数字倒序写到这里
+     */
+    private final byte[] digits = new byte[20];
+
+    private long bytesWritten;
+
+    public ChannelTextWriter(File file) throws IOException {
+        this(file, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize 缓冲区字节数, 至少 16
+     */
+    public ChannelTextWriter(File file, int bufferSize) throws IOException {
+        if (bufferSize < 16) {
+            throw new IllegalArgumentException("bufferSize must be at least 16: " + bufferSize);
+        }
+        this.bytes = new byte[bufferSize];
+        this.buffer = ByteBuffer.wrap(bytes);
+        this.channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * 写一个 ASCII 字符
+     */
+    public ChannelTextWriter write(char c) throws IOException {
+        ensure(1);
+        bytes[pos++] = (byte) c;
+        return this;
+    }
+
+    /**
+     * 原样写一段文字
+     */
+    public ChannelTextWriter write(CharSequence text) throws IOException {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            i = encode(text, i);
+        }
+        return this;
+    }
+
+    /**
+     * 写十进制整数
+     */
+    public ChannelTextWriter write(long value) throws IOException {
+        ensure(20);
+        if (value == Long.MIN_VALUE) {
+            return write(Long.toString(value));
+        }
+        if (value < 0) {
+            bytes[pos++] = '-';
+            value = -value;
+        }
+        int n = 0;
+        do {
+            digits[n++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        while (n > 0) {
+            bytes[pos++] = digits[--n];
+        }
+        return this;
+    }
+
+    /**
+     * 写 TSV 的一个字段, TAB/换行/回车/反斜杠写成 \t \n \r \\
+     */
+    public ChannelTextWriter writeTsvField(CharSequence text) throws IOException {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\t': writeEscape('t'); break;
+                case '\n': writeEscape('n'); break;
+                case '\r': writeEscape('r'); break;
+                case '\\': writeEscape('\\'); break;
+                default: i = encode(text, i);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 写带引号的 JSON 字符串
+     */
+    public ChannelTextWriter writeJsonString(CharSequence text) throws IOException {
+        write('"');
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"': writeEscape('"'); break;
+                case '\\': writeEscape('\\'); break;
+                case '\n': writeEscape('n'); break;
+                case '\r': writeEscape('r'); break;
+                case '\t': writeEscape('t'); break;
+                default:
+                    if (c < 0x20) {
+                        ensure(6);
+                        bytes[pos++] = '\\';
+                        bytes[pos++] = 'u';
+                        bytes[pos++] = '0';
+                        bytes[pos++] = '0';
+                        bytes[pos++] = HEX[c >> 4];
+                        bytes[pos++] = HEX[c & 0xf];
+                    } else {
+                        i = encode(text, i);
+                    }
+            }
+        }
+        return write('"');
+    }
+
+    /**
+     * 把缓冲区写入 channel
+     */
+    public void flush() throws IOException {
+        buffer.clear().limit(pos);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        bytesWritten += pos;
+        pos = 0;
+    }
+
+    /**
+     * 已经写出的字节数 (含缓冲区中的)
+     */
+    public long getBytesWritten() {
+        return bytesWritten + pos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeEscape(char c) throws IOException {
+        ensure(2);
+        bytes[pos++] = '\\';
+        bytes[pos++] = (byte) c;
+    }
+
+    /**
+     * 把 text[i] 编码成 UTF-8, 代理对一起编码
+     * @return 最后一个用到的字符下标
+     */
+    private int encode(CharSequence text, int i) throws IOException {
+        ensure(4);
+        char c = text.charAt(i);
+        if (c < 0x80) {
+            bytes[pos++] = (byte) c;
+        } else if (c < 0x800) {
+            bytes[pos++] = (byte) (0xc0 | (c >> 6));
+            bytes[pos++] = (byte) (0x80 | (c & 0x3f));
+        } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+            int cp = Character.toCodePoint(c, text.charAt(++i));
+            bytes[pos++] = (byte) (0xf0 | (cp >> 18));
+            bytes[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+            bytes[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+            bytes[pos++] = (byte) (0x80 | (cp & 0x3f));
+        } else if (Character.isSurrogate(c)) {
+            //不成对的代理字符, 与 String.getBytes 一样写成 ?
+            bytes[pos++] = '?';
+        } else {
+            bytes[pos++] = (byte) (0xe0 | (c >> 12));
+            bytes[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+            bytes[pos++] = (byte) (0x80 | (c & 0x3f));
+        }
+        return i;
+    }
+
+    private void ensure(int n) throws IOException {
+        if (pos + n > bytes.length) {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.shijialiuxue.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 单词 -> 出现次数 的开放寻址 hash 表
+ * 可以直接用 (char[], off, len) 查询和计数, 不需要先生成 String;
+ * 所有单词的字符连续存放在一个 char[] 中, 计数是 int, 没有装箱的 Integer/Long,
+ * 每个不同单词只占几个 int 加上自身的字符
+ *
+ * 条目按第一次出现的顺序编号 0..size()-1, 可以用 key(e)/count(e) 按顺序遍历
+ *
+ * 非线程安全
+ */
+public class CharCountMap implements TokenConsumer {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * hash 槽, 存 条目编号+1, 0 表示空
+     */
+    private int[] slots;
+
+    /**
+     * 以下按条目编号存放
+     */
+    private int[] hashes;
+    private int[] offsets;
+    private int[] lengths;
+    private int[] counts;
+
+    /**
+     * 所有单词的字符
+     */
+    private char[] pool;
+    private int poolSize;
+
+    private int size;
+
+    /**
+     * 计数总和
+     */
+    private long total;
+
+    public CharCountMap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize 预计的不同单词数
+     */
+    public CharCountMap(int expectedSize) {
+        int entries = Math.max(INITIAL_CAPACITY, expectedSize);
+        slots = new int[tableSizeFor(entries)];
+        hashes = new int[entries];
+        offsets = new int[entries];
+        lengths = new int[entries];
+        counts = new int[entries];
+        pool = new char[entries * 8];
+    }
+
+    /**
+     * 由 单词 -> 出现次数 的 Map 生成, 条目顺序与 Map 的遍历顺序相同
+     */
+    public static CharCountMap of(Map<String, Long> map) {
+        CharCountMap counts = new CharCountMap(map.size());
+        for (Map.Entry<String, Long> entry : map.entrySet()) {
+            counts.add(entry.getKey(), entry.getValue().intValue());
+        }
+        return counts;
+    }
+
+    @Override
+    public void accept(char[] buf, int off, int len) {
+        add(buf, off, len, 1);
+    }
+
+    /**
+     * buf[off, off+len) 的出现次数加 num
+     * @return 加完之后的次数
+     */
+    public int add(char[] buf, int off, int len, int num) {
+        int e = addEntry(buf, off, len, num);
+        return counts[e];
+    }
+
+    /**
+     * buf[off, off+len) 的出现次数加 num
+     * @return 条目编号, 新单词是 size()-1
+     */
+    public int addEntry(char[] buf, int off, int len, int num) {
+        int h = hash(buf, off, len);
+        int mask = slots.length - 1;
+        for (int s = h & mask; ; s = (s + 1) & mask) {
+            int e = slots[s] - 1;
+            if (e < 0) {
+                e = insert(h, buf, off, len, num);
+                slots[s] = e + 1;
+                if (size * 2 > slots.length) {
+                    rehash();
+                }
+                return e;
+            }
+            if (hashes[e] == h && equals(e, buf, off, len)) {
+                total += num;
+                counts[e] += num;
+                return e;
+            }
+        }
+    }
+
+    /**
+     * 单词出现次数加 num
+     * @return 加完之后的次数
+     */
+    public int add(CharSequence word, int num) {
+        int len = word.length();
+        char[] buf = new char[len];
+        for (int c = 0; c < len; c++) {
+            buf[c] = word.charAt(c);
+        }
+        return add(buf, 0, len, num);
+    }
+
+    /**
+     * buf[off, off+len) 的出现次数, 不存在返回0
+     */
+    public int get(char[] buf, int off, int len) {
+        int e = find(buf, off, len);
+        return e < 0 ? 0 : counts[e];
+    }
+
+    /**
+     * 单词的出现次数, 不存在返回0
+     */
+    public int get(String word) {
+        char[] buf = word.toCharArray();
+        return get(buf, 0, buf.length);
+    }
+
+    /**
+     * buf[off, off+len) 的条目编号, 不存在返回-1
+     */
+    public int find(char[] buf, int off, int len) {
+        int h = hash(buf, off, len);
+        int mask = slots.length - 1;
+        for (int s = h & mask; ; s = (s + 1) & mask) {
+            int e = slots[s] - 1;
+            if (e < 0) {
+                return -1;
+            }
+            if (hashes[e] == h && equals(e, buf, off, len)) {
+                return e;
+            }
+        }
+    }
+
+    /**
+     * 第 e 个条目的单词
+     */
+    public String key(int e) {
+        return new String(pool, offsets[e], lengths[e]);
+    }
+
+    /**
+     * 第 e 个条目的次数
+     */
+    public int count(int e) {
+        return counts[e];
+    }
+
+    /**
+     * 合并另一个表的计数, 新单词按 other 中的顺序追加
+     */
+    public void merge(CharCountMap other) {
+        for (int e = 0; e < other.size; e++) {
+            add(other.pool, other.offsets[e], other.lengths[e], other.counts[e]);
+        }
+    }
+
+    /**
+     * 转成 单词 -> 出现次数 的 Map (会为每个单词生成 String 和 Long)
+     */
+    public Map<String, Long> toMap() {
+        Map<String, Long> map = new HashMap<>(size * 2);
+        for (int e = 0; e < size; e++) {
+            map.put(key(e), (long) counts[e]);
+        }
+        return map;
+    }
+
+    /**
+     * 清空, 保留已经分配的空间重复使用
+     */
+    public void clear() {
+        Arrays.fill(slots, 0);
+        size = 0;
+        poolSize = 0;
+        total = 0;
+    }
+
+    /**
+     * 不同单词个数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 计数总和
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    private int insert(int h, char[] buf, int off, int len, int num) {
+        if (size == hashes.length) {
+            int capacity = size * 2;
+            hashes = Arrays.copyOf(hashes, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        if (poolSize + len > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + len));
+        }
+        System.arraycopy(buf, off, pool, poolSize, len);
+        int e = size++;
+        hashes[e] = h;
+        offsets[e] = poolSize;
+        lengths[e] = len;
+        counts[e] = num;
+        poolSize += len;
+        total += num;
+        return e;
+    }
+
+    private void rehash() {
+        int[] newSlots = new int[slots.length * 2];
+        int mask = newSlots.length - 1;
+        for (int e = 0; e < size; e++) {
+            int s = hashes[e] & mask;
+            while (newSlots[s] != 0) {
+                s = (s + 1) & mask;
+            }
+            newSlots[s] = e + 1;
+        }
+        slots = newSlots;
+    }
+
+    private boolean equals(int e, char[] buf, int off, int len) {
+        if (lengths[e] != len) {
+            return false;
+        }
+        int o = offsets[e];
+        for (int c = 0; c < len; c++) {
+            if (pool[o + c] != buf[off + c]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 与 String.hashCode 相同的多项式, 再打散高位
+     */
+    private static int hash(char[] buf, int off, int len) {
+        int h = 0;
+        for (int c = 0; c < len; c++) {
+            h = 31 * h + buf[off + c];
+        }
+        return h ^ (h >>> 16) ^ (h >>> 7);
+    }
+
+    private static int tableSizeFor(int entries) {
+        return Integer.highestOneBit(Math.max(INITIAL_CAPACITY, entries * 2) - 1) << 1;
+    }
+}
@@ -0,0 +1,186 @@
+package com.shijialiuxue.util;
+
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.HSSFUserException;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.ooxml.util.SAXHelper;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * 事件方式流式读取表格第一个 sheet 中的文字单元格
+ * .xls 使用 HSSF 事件模型, .xlsx 使用 XSSF SAX 解析, 不建立整个 workbook 的对象模型,
+ * 读完第一个 sheet 就停止
+ *
+ * .xls 只给出文字单元格 (含结果为文字的公式), 数字单元格不含字母, 直接跳过;
+ * .xlsx 给出所有非空单元格格式化后的文字
+ */
+public class ExcelEventReader {
+
+    /**
+     * 读取第一个 sheet, 按格式自动选择 .xls 或 .xlsx
+     */
+    public static void read(File file, CellHandler handler) throws IOException {
+        FileMagic magic = FileMagic.valueOf(file);
+        if (magic == FileMagic.OLE2) {
+            readXls(file, handler);
+        } else if (magic == FileMagic.OOXML) {
+            readXlsx(file, handler);
+        } else {
+            throw new IOException("unsupported spreadsheet format " + magic + ": " + file);
+        }
+    }
+
+    /**
+     * HSSF 事件模型读取 .xls
+     */
+    public static void readXls(File file, CellHandler handler) throws IOException {
+        try (POIFSFileSystem fs = new POIFSFileSystem(file, true)) {
+            HSSFRequest request = new HSSFRequest();
+            request.addListenerForAllRecords(new FirstSheetListener(handler));
+            new HSSFEventFactory().abortableProcessWorkbookEvents(request, fs);
+        } catch (HSSFUserException e) {
+            throw new IOException("failed to read " + file, e);
+        }
+    }
+
+    /**
+     * XSSF SAX 读取 .xlsx
+     */
+    public static void readXlsx(File file, CellHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return;
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = SAXHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(), strings,
+                        new SheetHandler(handler), false));
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("failed to read " + file, e);
+        }
+    }
+
+    /**
+     * 只处理第一个 worksheet, 遇到第二个时中止
+     */
+    private static class FirstSheetListener extends AbortableHSSFListener {
+
+        private final CellHandler handler;
+
+        private SSTRecord sst;
+
+        private int sheetIndex = -1;
+
+        /**
+         * 结果为文字的公式, 文字在紧跟的 StringRecord 中
+         */
+        private int formulaRow = -1;
+        private int formulaCol;
+
+        FirstSheetListener(CellHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public short abortableProcessRecord(Record record) {
+            switch (record.getSid()) {
+                case BOFRecord.sid:
+                    if (((BOFRecord) record).getType() == BOFRecord.TYPE_WORKSHEET && ++sheetIndex > 0) {
+                        return 1;
+                    }
+                    break;
+                case SSTRecord.sid:
+                    sst = (SSTRecord) record;
+                    break;
+                case LabelSSTRecord.sid:
+                    if (sheetIndex == 0) {
+                        LabelSSTRecord label = (LabelSSTRecord) record;
+                        handler.cell(label.getRow(), label.getColumn(), sst.getString(label.getSSTIndex()).getString());
+                    }
+                    break;
+                case LabelRecord.sid:
+                    if (sheetIndex == 0) {
+                        LabelRecord label = (LabelRecord) record;
+                        handler.cell(label.getRow(), label.getColumn(), label.getValue());
+                    }
+                    break;
+                case FormulaRecord.sid:
+                    FormulaRecord formula = (FormulaRecord) record;
+                    formulaRow = -1;
+                    if (sheetIndex == 0 && formula.hasCachedResultString()) {
+                        formulaRow = formula.getRow();
+                        formulaCol = formula.getColumn();
+                    }
+                    break;
+                case StringRecord.sid:
+                    if (formulaRow >= 0) {
+                        handler.cell(formulaRow, formulaCol, ((StringRecord) record).getString());
+                        formulaRow = -1;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            return 0;
+        }
+    }
+
+    private static class SheetHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final CellHandler handler;
+
+        private int row;
+
+        SheetHandler(CellHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            row = rowNum;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            if (formattedValue == null || formattedValue.isEmpty()) {
+                return;
+            }
+            handler.cell(row, new CellReference(cellReference).getCol(), formattedValue);
+        }
+    }
+}
@@ -2,9 +2,6 @@ package com.shijialiuxue.util;
 
 import com.shijialiuxue.Node;
 import com.shijialiuxue.NodeWord;
-import jxl.Cell;
-import jxl.Sheet;
-import jxl.Workbook;
 import org.apache.poi.hssf.usermodel.HSSFCell;
 import org.apache.poi.hssf.usermodel.HSSFRow;
 import org.apache.poi.hssf.usermodel.HSSFSheet;
@@ -28,27 +25,21 @@ public class FileUtils {
      * @return List<List<String>> list<string> 中是差不多相同的单词
      */
     public static List<List<String>> readIrregular(File file) throws Exception {
-        //打开
-        InputStream is = new FileInputStream(file);
-        Workbook wb = Workbook.getWorkbook(is);
-        Sheet sheet = wb.getSheet(0);
-        int rows = sheet.getRows();
         //和前面的区别在于用list套list的储存形式
         //读取的irregular文档是已知文档，里面的内容就是每一行第一个是动词原形，
         //之后是动词的过去式过去分词等特殊变化形式
         //外面的大list存每一个不同单词，里面的小list存的是每一个单词的不同变形
         List<List<String>> list = new ArrayList<>();
-        for (int i = 0; i < rows; i++) {
-            Cell[] row = sheet.getRow(i);
-            List<String> lList = new ArrayList<>();
-            for (Cell cell : row) {
-                String temp = cell.getContents().trim();
-                if (isWord(temp)){
-                    lList.add(toLowerCase(temp));
-                }
+        //流式读取第一个sheet, 没有文字的行也保留一个空的小list
+        ExcelEventReader.read(file, (row, col, text) -> {
+            while (list.size() <= row) {
+                list.add(new ArrayList<>());
             }
-            list.add(lList);
-        }
+            String temp = text.trim();
+            if (isWord(temp)){
+                list.get(row).add(toLowerCase(temp));
+            }
+        });
 
         return list;
     }
@@ -58,28 +49,45 @@ public class FileUtils {
      * 读取Excel中的文字  转换成单词
      */
     public static List<String> readExcel(File file) throws Exception {
-        InputStream is = new FileInputStream(file);
-        Workbook wb = Workbook.getWorkbook(is);
-        Sheet sheet = wb.getSheet(0);
-
         List<String> allData = new ArrayList<>();
+        readExcel(file, (buf, off, len) -> allData.add(new String(buf, off, len)));
+        return allData;
+    }
 
-        int rows = sheet.getRows();
+    /**
+     * 读取Excel中的文字  转换成单词, 每个单词直接交给 consumer 不做收集
+     */
+    public static void readExcel(File file, TokenConsumer consumer) throws Exception {
+        Tokenizer tokenizer = new Tokenizer();
+        //流式读取第一个sheet, 单元格文字直接分词
+        ExcelEventReader.read(file, (row, col, text) -> tokenizer.tokenize(text, consumer));
+    }
 
-        for (int i = 0; i < rows; i++) {
-            Cell[] row = sheet.getRow(i);
-            for (Cell cell : row) {
-                sentence2words(allData, cell.getContents());
-            }
+    /**
+     * 按扩展名读取一个文档中的单词: .txt 按文本读取, .xls/.xlsx 按表格读取
+     */
+    public static void readDocument(File file, TokenConsumer consumer) throws Exception {
+        String name = file.getName().toLowerCase();
+        if (name.endsWith(".xls") || name.endsWith(".xlsx")) {
+            readExcel(file, consumer);
+        } else {
+            readTxt(file, consumer);
         }
-
-        return allData;
     }
 
     /**
      * 读取TXT中的单词
      */
     public static List<String> readTxt(File file) throws IOException {
+        List<String> allData = new ArrayList<>();
+        readTxt(file, (buf, off, len) -> allData.add(new String(buf, off, len)));
+        return allData;
+    }
+
+    /**
+     * 读取TXT中的单词, 每个单词直接交给 consumer 不做收集
+     */
+    public static void readTxt(File file, TokenConsumer consumer) throws IOException {
 
         InputStreamReader read = null;
         BufferedReader bufferedReader = null;
@@ -87,13 +95,11 @@ public class FileUtils {
             read = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8);// 考虑到编码格式
             bufferedReader = new BufferedReader(read);
 
-            List<String> allData = new ArrayList<>();
+            Tokenizer tokenizer = new Tokenizer();
             String lineTxt ;
             while ((lineTxt = bufferedReader.readLine()) != null) {
-                sentence2words(allData, lineTxt);
+                tokenizer.tokenize(lineTxt, consumer);
             }
-
-            return allData;
         } catch (IOException e) {
             e.printStackTrace();
             throw e;
@@ -117,8 +123,20 @@ public class FileUtils {
     }
 
 
+    /**
+     * .xls 单个 sheet 的最大行数
+     */
+    public static final int XLS_MAX_ROWS = 65536;
+
     //用来把已经整理好的单词写到Excel当中去，放进来一个priority queue
     public static void makeExcel(ArrayList<Node> result) {
+        makeExcel(result, new File(FileUtils.class.getClassLoader().getResource("").getPath(), "result-all(copy)1.xls"));
+    }
+
+    /**
+     * 写到指定的 .xls 文件, 整个 workbook 在内存中生成, 最多 XLS_MAX_ROWS 行
+     */
+    public static void makeExcel(List<Node> result, File file) {
         //打开Excel
         HSSFWorkbook workbook = new HSSFWorkbook();
         HSSFSheet sheet = workbook.createSheet("result");
@@ -148,7 +166,6 @@ public class FileUtils {
 
         //写file固定程序
         try {
-            File file = new File(FileUtils.class.getClassLoader().getResource("").getPath() + "\\result-all(copy)1.xls");
             if (file.exists()){
                 file.createNewFile();
             }
@@ -163,11 +180,105 @@ public class FileUtils {
 
     }
 
+    /**
+     * 流式写到指定的 .xlsx 文件, 内存中只保留最近的若干行, 行数超过一个 sheet 时自动新建 sheet
+     */
+    public static void makeXlsx(List<Node> result, File file) throws IOException {
+        try (StreamingExcelWriter writer = new StreamingExcelWriter(file)) {
+            writer.write(result);
+        }
+        System.out.println("success");
+    }
+
+    /**
+     * 写成 TSV (stem / word / frequency / frequency in total), 没有空行
+     */
+    public static void makeTsv(List<Node> result, File file) throws IOException {
+        try (TsvResultWriter writer = new TsvResultWriter(file)) {
+            writer.write(result);
+        }
+        System.out.println("success");
+    }
+
+    /**
+     * 写成 JSON Lines, 每个词根一行
+     */
+    public static void makeJsonLines(List<Node> result, File file) throws IOException {
+        try (JsonLinesResultWriter writer = new JsonLinesResultWriter(file)) {
+            writer.write(result);
+        }
+        System.out.println("success");
+    }
+
+    /**
+     * 按扩展名写结果: .tsv / .jsonl 写文本, .xlsx 流式写 .xlsx, 其他写 .xls
+     * 行数超过 .xls 上限时与 PorterStemmer.main 一样改为流式写 .xlsx, 扩展名随之换成 .xlsx (file.xls -> file.xlsx)
+     *
+     * @return 实际写入的文件
+     */
+    public static File writeResult(List<Node> result, File file) throws IOException {
+        String name = file.getName().toLowerCase();
+        if (name.endsWith(".tsv")) {
+            makeTsv(result, file);
+        } else if (name.endsWith(".jsonl")) {
+            makeJsonLines(result, file);
+        } else if (name.endsWith(".xlsx")) {
+            makeXlsx(result, file);
+        } else if (rowCount(result) > XLS_MAX_ROWS) {
+            String base = name.endsWith(".xls") ? file.getName().substring(0, name.length() - 4) : file.getName();
+            file = new File(file.getAbsoluteFile().getParentFile(), base + ".xlsx");
+            makeXlsx(result, file);
+        } else {
+            makeExcel(result, file);
+        }
+        return file;
+    }
+
+    /**
+     * 按扩展名打开逐个词根写的 writer: .tsv / .jsonl 写文本, 其他流式写 .xlsx
+     */
+    public static ResultWriter openResultWriter(File file) throws IOException {
+        String name = file.getName().toLowerCase();
+        if (name.endsWith(".tsv")) {
+            return new TsvResultWriter(file);
+        }
+        if (name.endsWith(".jsonl")) {
+            return new JsonLinesResultWriter(file);
+        }
+        return new StreamingExcelWriter(file);
+    }
+
+    /**
+     * 结果写成表格需要的行数 (含表头和每个词根后的空行)
+     */
+    public static long rowCount(List<Node> result) {
+        long rows = 1;
+        for (Node node : result) {
+            rows += node.getWordList().size() + 1;
+        }
+        return rows;
+    }
+
     private static boolean isWord(String str){
-        return str.trim().matches("[a-zA-Z]+");
+        //与 matches("[a-zA-Z]+") 相同, 但不用每次编译正则
+        String s = str.trim();
+        if (s.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    private static void sentence2words(List<String> allData, String str){
+    /**
+     * 原分词实现, 已由 Tokenizer 替代, 保留作为测试和 benchmarks 中的对照
+     * 纯标点的行会产生一个空字符串
+     */
+    static void sentence2words(List<String> allData, String str){
         if (str.length() == 0) {
             return;
         }
@@ -0,0 +1,47 @@
+package com.shijialiuxue.util;
+
+import com.shijialiuxue.Node;
+import com.shijialiuxue.NodeWord;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 结果写成 JSON Lines, 每个词根一行:
+ * {"stem":"abandon","frequency":12,"words":[{"word":"abandoned","frequency":7},{"word":"abandon","frequency":5}]}
+ */
+public class JsonLinesResultWriter implements ResultWriter {
+
+    private final ChannelTextWriter out;
+
+    public JsonLinesResultWriter(File file) throws IOException {
+        this(file, ChannelTextWriter.DEFAULT_BUFFER_SIZE);
+    }
+
+    public JsonLinesResultWriter(File file, int bufferSize) throws IOException {
+        this.out = new ChannelTextWriter(file, bufferSize);
+    }
+
+    @Override
+    public void write(Node node) throws IOException {
+        out.write("{\"stem\":").writeJsonString(node.getStem())
+                .write(",\"frequency\":").write(node.getFrequency())
+                .write(",\"words\":[");
+        boolean first = true;
+        for (NodeWord word : node.getWordList()) {
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+            out.write("{\"word\":").writeJsonString(word.getWord())
+                    .write(",\"frequency\":").write(word.getFrequency())
+                    .write('}');
+        }
+        out.write("]}\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,185 @@
+package com.shijialiuxue.util;
+
+import java.util.Arrays;
+
+/**
+ * long -> 出现次数 的开放寻址 hash 表
+ * key 和计数都是基本类型数组, 没有装箱, 每个条目只占一个 long 一个 int 加上 hash 槽
+ *
+ * 条目按第一次出现的顺序编号 0..size()-1, 可以用 key(e)/count(e) 按顺序遍历,
+ * prune 之后剩下的条目保持原来的相对顺序重新编号
+ *
+ * 非线程安全
+ */
+public class LongCountMap {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * hash 槽, 存 条目编号+1, 0 表示空
+     */
+    private int[] slots;
+
+    /**
+     * 以下按条目编号存放
+     */
+    private long[] keys;
+    private int[] counts;
+
+    private int size;
+
+    /**
+     * 计数总和
+     */
+    private long total;
+
+    public LongCountMap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize 预计的不同 key 个数
+     */
+    public LongCountMap(int expectedSize) {
+        int entries = Math.max(INITIAL_CAPACITY, expectedSize);
+        slots = new int[tableSizeFor(entries)];
+        keys = new long[entries];
+        counts = new int[entries];
+    }
+
+    /**
+     * key 的出现次数加 num
+     * @return 加完之后的次数
+     */
+    public int add(long key, int num) {
+        total += num;
+        int mask = slots.length - 1;
+        for (int s = hash(key) & mask; ; s = (s + 1) & mask) {
+            int e = slots[s] - 1;
+            if (e < 0) {
+                if (size == keys.length) {
+                    keys = Arrays.copyOf(keys, size * 2);
+                    counts = Arrays.copyOf(counts, size * 2);
+                }
+                e = size++;
+                keys[e] = key;
+                counts[e] = num;
+                slots[s] = e + 1;
+                if (size * 2 > slots.length) {
+                    rehash(slots.length * 2);
+                }
+                return num;
+            }
+            if (keys[e] == key) {
+                return counts[e] += num;
+            }
+        }
+    }
+
+    /**
+     * key 的出现次数, 不存在返回0
+     */
+    public int get(long key) {
+        int mask = slots.length - 1;
+        for (int s = hash(key) & mask; ; s = (s + 1) & mask) {
+            int e = slots[s] - 1;
+            if (e < 0) {
+                return 0;
+            }
+            if (keys[e] == key) {
+                return counts[e];
+            }
+        }
+    }
+
+    /**
+     * 第 e 个条目的 key
+     */
+    public long key(int e) {
+        return keys[e];
+    }
+
+    /**
+     * 第 e 个条目的次数
+     */
+    public int count(int e) {
+        return counts[e];
+    }
+
+    /**
+     * 去掉次数小于 minCount 的条目, 计数总和不变
+     * 剩下的条目不到容量的一半时缩小数组, 释放内存
+     * @return 去掉的条目数
+     */
+    public int prune(int minCount) {
+        int kept = 0;
+        for (int e = 0; e < size; e++) {
+            if (counts[e] >= minCount) {
+                keys[kept] = keys[e];
+                counts[kept] = counts[e];
+                kept++;
+            }
+        }
+        int removed = size - kept;
+        if (removed > 0) {
+            size = kept;
+            int capacity = Math.max(INITIAL_CAPACITY, size);
+            if (capacity * 2 <= keys.length) {
+                keys = Arrays.copyOf(keys, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+            }
+            rehash(tableSizeFor(size));
+        }
+        return removed;
+    }
+
+    /**
+     * 不同 key 个数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 条目数组的容量
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * 计数总和 (包括 prune 去掉的)
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    private void rehash(int tableSize) {
+        int[] newSlots = new int[tableSize];
+        int mask = newSlots.length - 1;
+        for (int e = 0; e < size; e++) {
+            int s = hash(keys[e]) & mask;
+            while (newSlots[s] != 0) {
+                s = (s + 1) & mask;
+            }
+            newSlots[s] = e + 1;
+        }
+        slots = newSlots;
+    }
+
+    /**
+     * 打散 long 的各位 (murmur3 fmix64)
+     */
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private static int tableSizeFor(int entries) {
+        return Integer.highestOneBit(Math.max(INITIAL_CAPACITY, entries * 2) - 1) << 1;
+    }
+}
@@ -0,0 +1,259 @@
+package com.shijialiuxue.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 内存映射 + 分块并行 读取TXT中的单词
+ * 文件按空白字符切成若干块, 每块用 FileChannel.map 映射后直接在字节上分词,
+ * ASCII 走快速路径, 非ASCII 按 UTF-8 解码后处理, 规则与 Tokenizer 相同
+ *
+ * 每一块使用自己的 consumer (由 supplier 创建), 读完后按块的顺序交给调用方合并
+ */
+public class MappedTxtReader {
+
+    /**
+     * 默认块大小
+     */
+    public static final long DEFAULT_CHUNK_SIZE = 8L << 20;
+
+    /**
+     * 单块上限, 一次 map 不能超过 Integer.MAX_VALUE
+     */
+    private static final long MAX_CHUNK_SIZE = 1L << 30;
+
+    /**
+     * 寻找块边界时每次读取的字节数
+     */
+    private static final int PROBE_SIZE = 4096;
+
+    /**
+     * 读取TXT中的单词, 使用默认块大小
+     * @param file 文件
+     * @param parallelism 线程数, 也是同时存在的 consumer 个数上限
+     * @param supplier 为每一块创建 consumer
+     * @param merger 按块在文件中的顺序接收读完的 consumer, 之后不再引用它
+     */
+    public static <T extends TokenConsumer> void read(File file, int parallelism, Supplier<T> supplier,
+                                                      Consumer<? super T> merger) throws IOException {
+        read(file, parallelism, DEFAULT_CHUNK_SIZE, supplier, merger);
+    }
+
+    /**
+     * 读取TXT中的单词
+     * 最多 parallelism 块同时在读, 最前面的块交给 merger 之后才提交下一块,
+     * 所以无论文件多大, 同时存在的 consumer 不超过 parallelism 个
+     * @param file 文件
+     * @param parallelism 线程数, 也是同时存在的 consumer 个数上限
+     * @param chunkSize 每块的大致字节数, 实际边界会后移到下一个空白字符
+     * @param supplier 为每一块创建 consumer
+     * @param merger 按块在文件中的顺序接收读完的 consumer, 之后不再引用它
+     */
+    public static <T extends TokenConsumer> void read(File file, int parallelism, long chunkSize,
+                                                      Supplier<T> supplier, Consumer<? super T> merger) throws IOException {
+        if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("chunkSize must be in (0, " + MAX_CHUNK_SIZE + "]: " + chunkSize);
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            List<long[]> chunks = split(channel, chunkSize);
+            if (chunks.size() <= 1 || parallelism <= 1) {
+                for (long[] chunk : chunks) {
+                    T consumer = supplier.get();
+                    tokenize(map(channel, chunk), consumer);
+                    merger.accept(consumer);
+                }
+                return;
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, chunks.size()));
+            try {
+                Deque<Future<T>> pending = new ArrayDeque<>(parallelism);
+                int next = 0;
+                while (next < chunks.size() && pending.size() < parallelism) {
+                    pending.add(submit(executor, channel, chunks.get(next++), supplier.get()));
+                }
+                while (!pending.isEmpty()) {
+                    merger.accept(pending.poll().get());
+                    if (next < chunks.size()) {
+                        pending.add(submit(executor, channel, chunks.get(next++), supplier.get()));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while reading " + file, e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException("failed to read " + file, e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static <T extends TokenConsumer> Future<T> submit(ExecutorService executor, FileChannel channel,
+                                                              long[] chunk, T consumer) {
+        return executor.submit(() -> {
+            tokenize(map(channel, chunk), consumer);
+            return consumer;
+        });
+    }
+
+    private static ByteBuffer map(FileChannel channel, long[] chunk) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], chunk[1] - chunk[0]);
+    }
+
+    /**
+     * 按 chunkSize 切块, 每个边界后移到空白字符上,
+     * 保证不会切断单词, 's 或者 UTF-8 多字节字符
+     */
+    private static List<long[]> split(FileChannel channel, long chunkSize) throws IOException {
+        long size = channel.size();
+        List<long[]> chunks = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(start + chunkSize, size);
+            if (end < size) {
+                end = nextWhitespace(channel, end, size, probe);
+            }
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IOException("no whitespace within " + Integer.MAX_VALUE + " bytes after offset " + start);
+            }
+            chunks.add(new long[]{start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    private static long nextWhitespace(FileChannel channel, long pos, long size, ByteBuffer probe) throws IOException {
+        while (pos < size) {
+            probe.clear();
+            int n = channel.read(probe, pos);
+            if (n <= 0) {
+                return size;
+            }
+            for (int p = 0; p < n; p++) {
+                if (isWhitespace(probe.get(p))) {
+                    return pos + p;
+                }
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    /**
+     * 在一块映射的字节上分词
+     */
+    private static void tokenize(ByteBuffer bytes, TokenConsumer consumer) {
+        char[] buf = new char[32];
+        int len = 0;
+        int n = bytes.limit();
+        int i = 0;
+        while (i < n) {
+            int c = bytes.get(i) & 0xff;
+            if (c < 0x80) {
+                //ASCII 快速路径
+                i++;
+                if (c == '\'' && i < n) {
+                    int next = bytes.get(i);
+                    if (next == 's' || next == 'S') {
+                        i++;
+                        continue;
+                    }
+                }
+                if (c >= 'A' && c <= 'Z') {
+                    c += 'a' - 'A';
+                } else if (c < 'a' || c > 'z') {
+                    if (len > 0) {
+                        consumer.accept(buf, 0, len);
+                        len = 0;
+                    }
+                    continue;
+                }
+                if (len == buf.length) {
+                    buf = grow(buf);
+                }
+                buf[len++] = (char) c;
+                continue;
+            }
+
+            //非ASCII 按 UTF-8 解码, 非法字节与 InputStreamReader 一样视为替换字符 (非字母)
+            int ch = -1;
+            int extra;
+            if (c >= 0xc2 && c <= 0xdf) {
+                extra = 1;
+                ch = c & 0x1f;
+            } else if (c >= 0xe0 && c <= 0xef) {
+                extra = 2;
+                ch = c & 0x0f;
+            } else {
+                //4字节 (BMP之外, 都不是字母) 或非法首字节
+                extra = c >= 0xf0 && c <= 0xf4 ? 3 : 0;
+            }
+            int p = 1;
+            for (; p <= extra && i + p < n; p++) {
+                int cc = bytes.get(i + p) & 0xff;
+                if ((cc & 0xc0) != 0x80) {
+                    break;
+                }
+                ch = (ch << 6) | (cc & 0x3f);
+            }
+            if (p <= extra || extra == 3 || ch < 0x80 || (extra == 2 && (ch < 0x800 || (ch >= 0xd800 && ch <= 0xdfff)))) {
+                ch = -1;
+            }
+            i += p;
+
+            char lower = 0;
+            boolean dotted = false;
+            if (ch == 'İ') {
+                //İ 转小写是 i 加一个组合点, 组合点不是字母
+                lower = 'i';
+                dotted = true;
+            } else if (ch > 0) {
+                lower = Character.toLowerCase((char) ch);
+            }
+            if (lower >= 'a' && lower <= 'z') {
+                if (len == buf.length) {
+                    buf = grow(buf);
+                }
+                buf[len++] = lower;
+                if (!dotted) {
+                    continue;
+                }
+            }
+            if (len > 0) {
+                consumer.accept(buf, 0, len);
+                len = 0;
+            }
+        }
+        if (len > 0) {
+            consumer.accept(buf, 0, len);
+        }
+    }
+
+    private static char[] grow(char[] buf) {
+        char[] newBuf = new char[buf.length * 2];
+        System.arraycopy(buf, 0, newBuf, 0, buf.length);
+        return newBuf;
+    }
+}
@@ -0,0 +1,27 @@
+package com.shijialiuxue.util;
+
+import com.shijialiuxue.Node;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 逐个词根写出聚合结果, 词根节点可以边聚合边写, 不需要先收集整个结果
+ */
+public interface ResultWriter extends Closeable {
+
+    /**
+     * 写一个词根及其下所有的词
+     */
+    void write(Node node) throws IOException;
+
+    /**
+     * 写入整个结果
+     */
+    default void write(List<Node> result) throws IOException {
+        for (Node node : result) {
+            write(node);
+        }
+    }
+}
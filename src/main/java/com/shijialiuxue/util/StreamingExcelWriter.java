@@ -0,0 +1,138 @@
+package com.shijialiuxue.util;
+
+import com.shijialiuxue.Node;
+import com.shijialiuxue.NodeWord;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * 流式写 .xlsx 结果文件
+ * 基于 POI 的 SXSSFWorkbook, 内存中只保留最近 window 行, 更早的行刷到临时文件,
+ * 一个 sheet 写满后自动新建 sheet 继续写, 每个 sheet 都带表头
+ *
+ * 表格格式与 FileUtils.makeExcel 相同: stem / word / frequency / frequency in total,
+ * 每个词根之后空一行
+ */
+public class StreamingExcelWriter implements ResultWriter {
+
+    /**
+     * 默认内存中保留的行数
+     */
+    public static final int DEFAULT_WINDOW = 1000;
+
+    /**
+     * .xlsx 单个 sheet 的最大行数
+     */
+    public static final int MAX_ROWS_PER_SHEET = 1 << 20;
+
+    private static final String[] HEADER = {"stem", "word", "frequency", "frequency in total"};
+
+    private final File file;
+    private final SXSSFWorkbook workbook;
+    private final int maxRowsPerSheet;
+
+    private Sheet sheet;
+    private int rowNum;
+
+    public StreamingExcelWriter(File file) {
+        this(file, DEFAULT_WINDOW, MAX_ROWS_PER_SHEET);
+    }
+
+    /**
+     * @param file 输出文件
+     * @param window 内存中保留的行数
+     * @param maxRowsPerSheet 每个 sheet 的最大行数 (含表头), 超过后新建 sheet
+     */
+    public StreamingExcelWriter(File file, int window, int maxRowsPerSheet) {
+        if (maxRowsPerSheet < 2 || maxRowsPerSheet > MAX_ROWS_PER_SHEET) {
+            throw new IllegalArgumentException("maxRowsPerSheet must be in [2, " + MAX_ROWS_PER_SHEET + "]: " + maxRowsPerSheet);
+        }
+        this.file = file;
+        this.workbook = new SXSSFWorkbook(window);
+        this.maxRowsPerSheet = maxRowsPerSheet;
+        newSheet();
+    }
+
+    /**
+     * 写入整个结果
+     */
+    @Override
+    public void write(List<Node> result) {
+        for (Node node : result) {
+            write(node);
+        }
+    }
+
+    /**
+     * 写一个词根, 之后空一行
+     */
+    @Override
+    public void write(Node node) {
+        for (NodeWord word : node.getWordList()) {
+            writeRow(node.getStem(), word.getWord(), word.getFrequency(), node.getFrequency());
+        }
+        writeBlankRow();
+    }
+
+    /**
+     * 写一行 词根-词-词频-词根频率
+     */
+    public void writeRow(String stem, String word, int frequency, int total) {
+        Row row = nextRow();
+        row.createCell(0).setCellValue(stem);
+        row.createCell(1).setCellValue(word);
+        row.createCell(2).setCellValue(frequency);
+        row.createCell(3).setCellValue(total);
+    }
+
+    /**
+     * 写一个空行
+     */
+    public void writeBlankRow() {
+        nextRow();
+    }
+
+    /**
+     * 已经新建的 sheet 个数
+     */
+    public int getSheetCount() {
+        return workbook.getNumberOfSheets();
+    }
+
+    /**
+     * 写文件并删除临时文件
+     */
+    @Override
+    public void close() throws IOException {
+        try (OutputStream os = new FileOutputStream(file)) {
+            workbook.write(os);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private Row nextRow() {
+        if (rowNum == maxRowsPerSheet) {
+            newSheet();
+        }
+        return sheet.createRow(rowNum++);
+    }
+
+    private void newSheet() {
+        int count = workbook.getNumberOfSheets();
+        sheet = workbook.createSheet(count == 0 ? "result" : "result" + (count + 1));
+        Row row = sheet.createRow(0);
+        for (int c = 0; c < HEADER.length; c++) {
+            row.createCell(c).setCellValue(HEADER[c]);
+        }
+        rowNum = 1;
+    }
+}
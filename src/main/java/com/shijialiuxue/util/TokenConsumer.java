@@ -0,0 +1,10 @@
+package com.shijialiuxue.util;
+
+/**
+ * 分词回调
+ * 单词以 buf[off, off+len) 的形式给出, buf 会被复用, 需要保留时请自行复制
+ */
+public interface TokenConsumer {
+
+    void accept(char[] buf, int off, int len);
+}
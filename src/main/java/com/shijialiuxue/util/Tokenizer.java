@@ -0,0 +1,85 @@
+package com.shijialiuxue.util;
+
+import java.util.List;
+
+/**
+ * 单次扫描分词
+ * 一次遍历完成 转小写 / 去掉 's / 非字母切分, 与原来
+ * toLowerCase -> replace("'s", "") -> replaceAll("[^a-zA-Z]", " ") -> split("\\s+")
+ * 的结果一致, 但不会产生空字符串单词
+ *
+ * 内部缓冲区会复用, 非线程安全, 每个线程各用一个实例
+ */
+public class Tokenizer {
+
+    private char[] buf = new char[32];
+
+    /**
+     * 当前单词长度
+     */
+    private int len;
+
+    /**
+     * 把一行文字切成单词, 逐个交给 consumer
+     */
+    public void tokenize(CharSequence str, TokenConsumer consumer) {
+        int n = str.length();
+        len = 0;
+        for (int i = 0; i < n; i++) {
+            char c = str.charAt(i);
+            //去掉 's (包括 'S), 前后两部分直接相连
+            if (c == '\'' && i + 1 < n) {
+                char next = str.charAt(i + 1);
+                if (next == 's' || next == 'S') {
+                    i++;
+                    continue;
+                }
+            }
+            if (c < 128) {
+                if (c >= 'A' && c <= 'Z') {
+                    append((char) (c + ('a' - 'A')));
+                } else if (c >= 'a' && c <= 'z') {
+                    append(c);
+                } else {
+                    flush(consumer);
+                }
+            } else if (c == 'İ') {
+                //İ 转小写是 i 加一个组合点, 组合点不是字母
+                append('i');
+                flush(consumer);
+            } else {
+                //少数非ASCII字符转小写后是ASCII字母, 例如开尔文符号
+                char lower = Character.toLowerCase(c);
+                if (lower >= 'a' && lower <= 'z') {
+                    append(lower);
+                } else {
+                    flush(consumer);
+                }
+            }
+        }
+        flush(consumer);
+    }
+
+    /**
+     * 把一行文字切成单词, 加到 list 中
+     */
+    public void tokenize(CharSequence str, List<String> allData) {
+        tokenize(str, (b, off, l) -> allData.add(new String(b, off, l)));
+    }
+
+    private void append(char c) {
+        if (len == buf.length) {
+            char[] newBuf = new char[len * 2];
+            System.arraycopy(buf, 0, newBuf, 0, len);
+            buf = newBuf;
+        }
+        buf[len++] = c;
+    }
+
+    private void flush(TokenConsumer consumer) {
+        if (len > 0) {
+            consumer.accept(buf, 0, len);
+            len = 0;
+        }
+    }
+}
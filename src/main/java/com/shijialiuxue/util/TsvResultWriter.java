@@ -0,0 +1,50 @@
+package com.shijialiuxue.util;
+
+import com.shijialiuxue.Node;
+import com.shijialiuxue.NodeWord;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 结果写成 TSV, 给不需要表格的下游程序读取
+ * 列与 FileUtils.makeExcel 相同: stem / word / frequency / frequency in total,
+ * 第一行是表头, 每个词一行, 词根之间没有空行
+ */
+public class TsvResultWriter implements ResultWriter {
+
+    private static final String HEADER = "stem\tword\tfrequency\tfrequency in total\n";
+
+    private final ChannelTextWriter out;
+
+    public TsvResultWriter(File file) throws IOException {
+        this(file, ChannelTextWriter.DEFAULT_BUFFER_SIZE);
+    }
+
+    public TsvResultWriter(File file, int bufferSize) throws IOException {
+        this.out = new ChannelTextWriter(file, bufferSize);
+        out.write(HEADER);
+    }
+
+    @Override
+    public void write(Node node) throws IOException {
+        for (NodeWord word : node.getWordList()) {
+            writeRow(node.getStem(), word.getWord(), word.getFrequency(), node.getFrequency());
+        }
+    }
+
+    /**
+     * 写一行 词根-词-词频-词根频率
+     */
+    public void writeRow(String stem, String word, int frequency, int total) throws IOException {
+        out.writeTsvField(stem).write('\t')
+                .writeTsvField(word).write('\t')
+                .write(frequency).write('\t')
+                .write(total).write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
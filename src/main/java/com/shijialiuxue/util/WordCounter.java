@@ -0,0 +1,65 @@
+package com.shijialiuxue.util;
+
+import java.util.Map;
+
+/**
+ * 增量词频统计
+ * 作为分词回调直接接收单词并计数, 不再先收集全部单词的 List 再分组,
+ * 内存只与不同单词数 (词汇量) 有关, 与语料总词数无关
+ *
+ * 计数存在 CharCountMap 中, 已经出现过的单词计数时不生成 String
+ *
+ * 非线程安全
+ */
+public class WordCounter implements TokenConsumer {
+
+    private final CharCountMap counts = new CharCountMap();
+
+    @Override
+    public void accept(char[] buf, int off, int len) {
+        counts.add(buf, off, len, 1);
+    }
+
+    /**
+     * 单词出现次数加n
+     */
+    public void add(String word, int num) {
+        counts.add(word, num);
+    }
+
+    /**
+     * 合并另一个计数器的结果 (例如分块并行读取时每块各自的计数)
+     */
+    public void merge(WordCounter other) {
+        counts.merge(other.counts);
+    }
+
+    /**
+     * 单词 -> 出现次数, 条目按单词第一次出现的顺序排列
+     */
+    public CharCountMap getCountMap() {
+        return counts;
+    }
+
+    /**
+     * 单词 -> 出现次数, 与原来 groupingBy(counting()) 的结果相同
+     * 每次调用都会生成新的 Map, 大词汇量时请用 getCountMap
+     */
+    public Map<String, Long> getCounts() {
+        return counts.toMap();
+    }
+
+    /**
+     * 不同单词个数
+     */
+    public int size() {
+        return counts.size();
+    }
+
+    /**
+     * 读入的单词总数
+     */
+    public long getTotal() {
+        return counts.getTotal();
+    }
+}
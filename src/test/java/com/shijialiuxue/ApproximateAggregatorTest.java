@@ -0,0 +1,61 @@
+package com.shijialiuxue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.shijialiuxue.cache.StemCache;
+import com.shijialiuxue.util.FileUtils;
+import com.shijialiuxue.util.WordCounter;
+import org.junit.Test;
+
+/**
+ * reading.txt 上近似聚合与精确结果对照: 估计值不小于真实值, 误差在上界内, 高频词根都能找到
+ */
+public class ApproximateAggregatorTest
+{
+    @Test
+    public void shouldStayWithinErrorBound() throws Exception
+    {
+        File reading = new File(getClass().getClassLoader().getResource("reading.txt").getPath());
+        File irregular = new File(getClass().getClassLoader().getResource("irregular.xls").getPath());
+        ParallelStemmer stemmer = new ParallelStemmer(IrregularIndex.of(FileUtils.readIrregular(irregular)), 1, new StemCache(4096));
+        try {
+            WordCounter counter = new WordCounter();
+            FileUtils.readTxt(reading, counter);
+            StemIndex exact = stemmer.stem(counter.getCountMap());
+
+            ApproximateAggregator approx = new ApproximateAggregator(stemmer.getWordStemmer(), 0.001, 0.01, 200);
+            FileUtils.readTxt(reading, approx);
+            assertEquals(counter.getTotal(), approx.getTotal());
+
+            long bound = approx.getErrorBound();
+            for (Node node : exact.toList()) {
+                long estimate = approx.estimateStem(node.getStem());
+                assertTrue(node.getStem(), estimate >= node.getFrequency());
+                assertTrue(node.getStem(), estimate - node.getFrequency() <= bound);
+            }
+
+            //频率超过 总数/200 的词根一定在前200个中
+            Set<String> found = new HashSet<>();
+            for (Node node : approx.topFamilies(200)) {
+                found.add(node.getStem());
+            }
+            for (Node node : exact.topStems(50)) {
+                if (node.getFrequency() > approx.getTotal() / 200) {
+                    assertTrue(node.getStem(), found.contains(node.getStem()));
+                }
+            }
+
+            List<Node> top = approx.topFamilies(10);
+            List<Node> exactTop = exact.topStems(10);
+            assertEquals(exactTop.get(0).getStem(), top.get(0).getStem());
+        } finally {
+            stemmer.shutdown();
+        }
+    }
+}
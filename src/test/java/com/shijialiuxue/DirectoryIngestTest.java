@@ -0,0 +1,87 @@
+package com.shijialiuxue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.shijialiuxue.util.FileUtils;
+import com.shijialiuxue.util.WordCounter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * reading.txt 拆成多个文件放在子目录中, 与依次读取这些文件后聚合的结果相同
+ */
+public class DirectoryIngestTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldMatchSequentialAggregation() throws Exception
+    {
+        File reading = new File(getClass().getClassLoader().getResource("reading.txt").getPath());
+        File excel = new File(getClass().getClassLoader().getResource("five1.xls").getPath());
+        Path root = folder.getRoot().toPath();
+        List<String> lines = Files.readAllLines(reading.toPath(), StandardCharsets.UTF_8);
+        int parts = 24;
+        for (int p = 0; p < parts; p++) {
+            Path dir = Files.createDirectories(root.resolve("part" + p % 3));
+            List<String> part = lines.subList(lines.size() * p / parts, lines.size() * (p + 1) / parts);
+            Files.write(dir.resolve(String.format("reading%02d.txt", p)), part, StandardCharsets.UTF_8);
+        }
+        Files.copy(excel.toPath(), root.resolve("five1.xls"), StandardCopyOption.REPLACE_EXISTING);
+        Files.write(root.resolve("notes.md"), "ignored words".getBytes(StandardCharsets.UTF_8));
+
+        List<File> files = DirectoryIngest.listFiles(root, DirectoryIngest.DEFAULT_GLOB);
+        assertEquals(parts + 1, files.size());
+
+        ParallelStemmer stemmer = new ParallelStemmer(IrregularIndex.of(new ArrayList<>()), 2);
+        try {
+            WordCounter counter = new WordCounter();
+            for (File file : files) {
+                FileUtils.readDocument(file, counter);
+            }
+            StemIndex expected = stemmer.stem(counter.getCountMap());
+
+            StemIndex actual = new DirectoryIngest(stemmer.getWordStemmer(), 3, 2, 2).ingest(files);
+            assertEquals(ParallelStemmerTest.dump(expected), ParallelStemmerTest.dump(actual));
+        } finally {
+            stemmer.shutdown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldFailWhenStemmersFail() throws Exception
+    {
+        List<String> lines = Files.readAllLines(
+                new File(getClass().getClassLoader().getResource("reading.txt").getPath()).toPath(), StandardCharsets.UTF_8);
+        List<File> files = new ArrayList<>();
+        for (int p = 0; p < 20; p++) {
+            File file = folder.newFile("reading" + p + ".txt");
+            Files.write(file.toPath(), lines.subList(lines.size() * p / 20, lines.size() * (p + 1) / 20), StandardCharsets.UTF_8);
+            files.add(file);
+        }
+        WordStemmer failing = new WordStemmer(IrregularIndex.of(new ArrayList<>())) {
+            @Override
+            public String stem(PorterStemmer porter, String word)
+            {
+                throw new IllegalArgumentException("broken stemmer");
+            }
+        };
+        try {
+            new DirectoryIngest(failing, 2, 2, 2).ingest(files);
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("broken stemmer", e.getCause().getMessage());
+        }
+    }
+}
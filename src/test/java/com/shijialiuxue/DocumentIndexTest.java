@@ -0,0 +1,69 @@
+package com.shijialiuxue;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.shijialiuxue.util.FileUtils;
+import com.shijialiuxue.util.WordCounter;
+import org.junit.Test;
+
+/**
+ * 按文档的倒排表, 文档频率和 TF-IDF
+ */
+public class DocumentIndexTest
+{
+    @Test
+    public void shouldTrackDocumentsPerStem()
+    {
+        WordStemmer stemmer = new WordStemmer(IrregularIndex.of(new ArrayList<>()));
+        DocumentIndex docs = new DocumentIndex(stemmer);
+        docs.addDocument("The river flows. Rivers flowing north.");
+        docs.addDocument("A quiet river.");
+        docs.addDocument("Nothing else here.");
+
+        assertEquals(3, docs.documentCount());
+        assertEquals(2, docs.documentFrequency("river"));
+        assertEquals(1, docs.documentFrequency("flow"));
+        assertEquals(0, docs.documentFrequency("missing"));
+
+        Postings postings = docs.getIndex().getNode("river").getPostings();
+        List<String> seen = new ArrayList<>();
+        postings.forEach((doc, count) -> seen.add(doc + ":" + count));
+        assertEquals("[0:2, 1:1]", seen.toString());
+
+        assertEquals(2 * Math.log(3.0 / 1), docs.tfIdf("flow", 0), 1e-9);
+        assertEquals(0, docs.tfIdf("flow", 1), 1e-9);
+        assertEquals("river", docs.topByDocumentFrequency(1).get(0).getStem());
+        assertEquals("flow", docs.topByTfIdf(0, 1).get(0).getStem());
+    }
+
+    @Test
+    public void shouldAggregateLikeWholeFile() throws Exception
+    {
+        File reading = new File(getClass().getClassLoader().getResource("reading.txt").getPath());
+        ParallelStemmer stemmer = new ParallelStemmer(IrregularIndex.of(new ArrayList<>()), 2);
+        try {
+            DocumentIndex docs = new DocumentIndex(stemmer.getWordStemmer());
+            docs.addTxt(reading);
+
+            WordCounter counter = new WordCounter();
+            FileUtils.readTxt(reading, counter);
+            StemIndex whole = stemmer.stem(counter.getCountMap());
+
+            StemIndex index = docs.getIndex();
+            assertEquals(whole.stemCount(), index.stemCount());
+            for (Node node : whole.toList()) {
+                Node byDoc = index.getNode(node.getStem());
+                assertEquals(node.getFrequency(), byDoc.getFrequency());
+                int[] sum = new int[1];
+                byDoc.getPostings().forEach((doc, count) -> sum[0] += count);
+                assertEquals(node.getFrequency(), sum[0]);
+            }
+        } finally {
+            stemmer.shutdown();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.shijialiuxue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import com.shijialiuxue.util.FileUtils;
+import com.shijialiuxue.util.WordCounter;
+import org.junit.Test;
+
+/**
+ * 外存聚合 (预算很小, 产生多个 run) 与内存中聚合后按词根排序的结果相同
+ */
+public class ExternalAggregatorTest
+{
+    @Test
+    public void shouldMatchInMemoryAggregation() throws Exception
+    {
+        File reading = new File(getClass().getClassLoader().getResource("reading.txt").getPath());
+        File excel = new File(getClass().getClassLoader().getResource("five1.xls").getPath());
+        ParallelStemmer stemmer = new ParallelStemmer(IrregularIndex.of(new ArrayList<>()), 2);
+        try {
+            WordCounter counter = new WordCounter();
+            FileUtils.readExcel(excel, counter);
+            FileUtils.readTxt(reading, counter);
+            List<Node> expected = stemmer.stem(counter.getCountMap()).toList();
+            expected.sort(Comparator.comparing(Node::getStem));
+
+            File dir = new File(System.getProperty("java.io.tmpdir"));
+            ExternalAggregator aggregator = new ExternalAggregator(stemmer.getWordStemmer(), 16 * 1024, dir);
+            FileUtils.readExcel(excel, aggregator);
+            FileUtils.readTxt(reading, aggregator);
+            assertTrue(aggregator.getWordRunCount() > 5);
+
+            assertEquals(ParallelStemmerTest.dump(expected), ParallelStemmerTest.dump(aggregator.toList()));
+        } finally {
+            stemmer.shutdown();
+        }
+    }
+}
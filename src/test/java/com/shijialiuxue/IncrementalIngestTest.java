@@ -0,0 +1,47 @@
+package com.shijialiuxue;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * 增量读入与一次性重新计算的结果对照
+ */
+public class IncrementalIngestTest
+{
+    @Test
+    public void shouldMatchFullRecompute() throws Exception
+    {
+        List<String> lines = Files.readAllLines(
+                new File(getClass().getClassLoader().getResource("reading.txt").getPath()).toPath(), StandardCharsets.UTF_8);
+        File first = File.createTempFile("first", ".txt");
+        File second = File.createTempFile("second", ".txt");
+        File state = File.createTempFile("state", ".bin");
+        ParallelStemmer stemmer = new ParallelStemmer(IrregularIndex.of(new ArrayList<>()), 2);
+        try {
+            Files.write(first.toPath(), lines.subList(0, lines.size() / 2), StandardCharsets.UTF_8);
+            Files.write(second.toPath(), lines.subList(lines.size() / 2, lines.size()), StandardCharsets.UTF_8);
+            IncrementalIngest ingest = new IncrementalIngest(stemmer);
+
+            StemIndex full = ingest.ingest(new StemIndex(), Arrays.asList(first, second));
+
+            ingest.ingest(new StemIndex(), Collections.singletonList(first)).save(state);
+            StemIndex incremental = ingest.ingest(StemIndex.load(state), Collections.singletonList(second));
+
+            assertEquals(ParallelStemmerTest.dump(full), ParallelStemmerTest.dump(incremental));
+        } finally {
+            stemmer.shutdown();
+            first.delete();
+            second.delete();
+            state.delete();
+        }
+    }
+}
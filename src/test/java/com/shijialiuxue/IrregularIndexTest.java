@@ -0,0 +1,89 @@
+package com.shijialiuxue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+
+import com.shijialiuxue.util.FileUtils;
+import org.junit.Test;
+
+/**
+ * 编译后的不规则变化表与直接解析表格一致, 表格变化后重新编译
+ */
+public class IrregularIndexTest
+{
+    @Test
+    public void shouldCompileAndDetectStaleness() throws Exception
+    {
+        File source = new File(getClass().getClassLoader().getResource("irregular.xls").getPath());
+        File dir = Files.createTempDirectory("irregular").toFile();
+        File xls = new File(dir, "irregular.xls");
+        File compiled = new File(dir, "irregular.xls" + IrregularIndex.COMPILED_SUFFIX);
+        try {
+            Files.copy(source.toPath(), xls.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            IrregularIndex parsed = IrregularIndex.of(FileUtils.readIrregular(xls));
+
+            IrregularIndex first = IrregularIndex.load(xls);
+            assertTrue(compiled.isFile());
+            IrregularIndex fromCompiled = IrregularIndex.readCompiled(compiled, xls.length(), xls.lastModified());
+            assertNotNull(fromCompiled);
+            assertEquals(parsed.size(), first.size());
+            assertEquals(parsed.size(), fromCompiled.size());
+            for (String form : new String[]{"went", "gone", "arose", "abode", "cats", "", "zzzz"}) {
+                assertEquals(parsed.find(form), fromCompiled.find(form));
+            }
+            //hash 查找与逐行扫描结果一致
+            List<List<String>> irregular = FileUtils.readIrregular(xls);
+            for (List<String> row : irregular) {
+                for (String form : row) {
+                    assertEquals(PorterStemmer.findIrregular(irregular, form), fromCompiled.find(form));
+                }
+            }
+
+            //截断的编译文件视为损坏, 重新编译
+            byte[] bytes = Files.readAllBytes(compiled.toPath());
+            Files.write(compiled.toPath(), Arrays.copyOf(bytes, bytes.length - 3));
+            assertEquals(parsed.size(), IrregularIndex.load(xls).size());
+            assertEquals(bytes.length, compiled.length());
+
+            //槽位表被填满 (没有空槽) 时同样视为损坏, 而不是让 find 一直探测
+            int header = 4 + 4 + 8 + 8;
+            ByteBuffer corrupt = ByteBuffer.wrap(bytes.clone());
+            int count = corrupt.getInt(header);
+            int tableSize = corrupt.getInt(header + 8);
+            int slotsPos = header + 12 + (count * 2 + 1) * 4;
+            for (int s = 0; s < tableSize; s++) {
+                corrupt.putInt(slotsPos + s * 4, 1);
+            }
+            Files.write(compiled.toPath(), corrupt.array());
+            try {
+                IrregularIndex.readCompiled(compiled, xls.length(), xls.lastModified());
+                fail();
+            } catch (IOException e) {
+                //期望
+            }
+            assertEquals(parsed.find("went"), IrregularIndex.load(xls).find("went"));
+            assertTrue(Arrays.equals(bytes, Files.readAllBytes(compiled.toPath())));
+
+            //表格修改后旧的编译文件失效
+            assertTrue(xls.setLastModified(xls.lastModified() - 60000));
+            assertNull(IrregularIndex.readCompiled(compiled, xls.length(), xls.lastModified()));
+            IrregularIndex.load(xls);
+            assertNotNull(IrregularIndex.readCompiled(compiled, xls.length(), xls.lastModified()));
+        } finally {
+            compiled.delete();
+            xls.delete();
+            dir.delete();
+        }
+    }
+}
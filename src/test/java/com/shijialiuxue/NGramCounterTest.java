@@ -0,0 +1,72 @@
+package com.shijialiuxue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.shijialiuxue.util.Tokenizer;
+import org.junit.Test;
+
+/**
+ * reading.txt 上的词根 n-gram 与直接拼接字符串计数的结果对照
+ */
+public class NGramCounterTest
+{
+    @Test
+    public void shouldMatchStringConcatenation() throws Exception
+    {
+        File reading = new File(getClass().getClassLoader().getResource("reading.txt").getPath());
+        WordStemmer stemmer = new WordStemmer(IrregularIndex.of(new ArrayList<>()));
+        NGramCounter counter = new NGramCounter(stemmer);
+        counter.addTxt(reading);
+
+        PorterStemmer porter = new PorterStemmer();
+        Tokenizer tokenizer = new Tokenizer();
+        List<Map<String, Integer>> expected = new ArrayList<>();
+        for (int n = 0; n <= NGramCounter.MAX_N; n++) {
+            expected.add(new HashMap<>());
+        }
+        for (String line : Files.readAllLines(reading.toPath(), StandardCharsets.UTF_8)) {
+            for (String sentence : line.split("[.?!;:]")) {
+                List<String> stems = new ArrayList<>();
+                tokenizer.tokenize(sentence, (buf, off, len) -> stems.add(stemmer.stem(porter, new String(buf, off, len))));
+                for (int n = 2; n <= NGramCounter.MAX_N; n++) {
+                    for (int i = 0; i + n <= stems.size(); i++) {
+                        expected.get(n).merge(String.join(" ", stems.subList(i, i + n)), 1, Integer::sum);
+                    }
+                }
+            }
+        }
+
+        for (int n = 2; n <= NGramCounter.MAX_N; n++) {
+            assertEquals(expected.get(n).size(), counter.size(n));
+            Map<String, Integer> actual = new HashMap<>();
+            List<NGram> all = counter.top(n, Integer.MAX_VALUE, 1);
+            for (NGram gram : all) {
+                actual.put(gram.getStems(), gram.getFrequency());
+            }
+            assertEquals(expected.get(n), actual);
+            for (int i = 1; i < all.size(); i++) {
+                assertTrue(all.get(i - 1).getFrequency() >= all.get(i).getFrequency());
+            }
+        }
+        assertTrue(counter.frequency("glacial", "period") > 0);
+        assertEquals(expected.get(2).get(stemmer.stem(porter, "glacial") + " " + stemmer.stem(porter, "period")).intValue(),
+                counter.frequency("Glacial", "periods"));
+
+        //去掉只出现一次的之后, top 结果不变
+        List<NGram> top = counter.top(2, 20, 2);
+        counter.prune(2);
+        assertEquals(top.toString(), counter.top(2, 20, 2).toString());
+        for (NGram gram : counter.top(3, Integer.MAX_VALUE, 1)) {
+            assertTrue(gram.getFrequency() >= 2);
+        }
+    }
+}
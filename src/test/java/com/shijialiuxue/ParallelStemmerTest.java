@@ -0,0 +1,63 @@
+package com.shijialiuxue;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.shijialiuxue.util.FileUtils;
+import com.shijialiuxue.util.WordCounter;
+
+/**
+ * ParallelStemmer 与单线程依次处理的结果对照
+ */
+public class ParallelStemmerTest
+{
+    @Test
+    public void shouldMatchSerialAggregation() throws Exception
+    {
+        WordCounter counter = new WordCounter();
+        FileUtils.readTxt(new File(getClass().getClassLoader().getResource("reading.txt").getPath()), counter);
+        Map<String, Long> counts = counter.getCounts();
+        IrregularIndex irregular = IrregularIndex.of(Collections.singletonList(Arrays.asList("be", "was", "were", "been")));
+
+        PorterStemmer s = new PorterStemmer();
+        StemIndex serial = new StemIndex();
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            String word = entry.getKey();
+            String base = irregular.find(word);
+            serial.add(word, s.stem(base != null ? base : word), entry.getValue().intValue());
+        }
+
+        ParallelStemmer stemmer = new ParallelStemmer(irregular, 4);
+        try {
+            assertEquals(dump(serial), dump(stemmer.stem(counts)));
+        } finally {
+            stemmer.shutdown();
+        }
+    }
+
+    static String dump(StemIndex index)
+    {
+        return dump(index.toList());
+    }
+
+    static String dump(List<Node> nodes)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (Node node : nodes) {
+            sb.append(node.getStem()).append(' ').append(node.getFrequency()).append(':');
+            for (NodeWord word : node.getWordList()) {
+                sb.append(' ').append(word.getWord()).append('=').append(word.getFrequency());
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,75 @@
+package com.shijialiuxue;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import com.shijialiuxue.util.FileUtils;
+import com.shijialiuxue.util.WordCounter;
+
+/**
+ * PorterStemmer 两种调用方式
+ */
+public class PorterStemmerTest
+{
+    @Test
+    public void shouldStemStep1Examples()
+    {
+        PorterStemmer s = new PorterStemmer();
+        String[][] examples = {
+                {"caresses", "caress"}, {"ponies", "poni"}, {"ties", "ti"}, {"caress", "caress"},
+                {"cats", "cat"}, {"feed", "feed"}, {"agreed", "agre"}, {"disabled", "disabl"},
+                {"matting", "mat"}, {"mating", "mate"}, {"meeting", "meet"}, {"milling", "mill"},
+                {"messing", "mess"}, {"meetings", "meet"}, {"generalization", "gener"}
+        };
+        for (String[] example : examples) {
+            assertEquals(example[0], example[1], s.stem(example[0]));
+        }
+    }
+
+    @Test
+    public void bufferApiShouldMatchStringApi() throws Exception
+    {
+        WordCounter counter = new WordCounter();
+        FileUtils.readTxt(new File(getClass().getClassLoader().getResource("reading.txt").getPath()), counter);
+
+        PorterStemmer s = new PorterStemmer();
+        char[] src = new char[64];
+        char[] dst = new char[64];
+        for (String word : counter.getCounts().keySet()) {
+            //单词放在 src 中间, 检查 off 的处理
+            word.getChars(0, word.length(), src, 3);
+            int len = s.stem(src, 3, word.length(), dst);
+            assertEquals(word, s.stem(word), new String(dst, 0, len));
+        }
+    }
+
+    @Test
+    public void trieStemmerShouldMatchPorterStemmer() throws Exception
+    {
+        WordCounter counter = new WordCounter();
+        FileUtils.readTxt(new File(getClass().getClassLoader().getResource("reading.txt").getPath()), counter);
+        FileUtils.readExcel(new File(getClass().getClassLoader().getResource("five1.xls").getPath()), counter);
+        //每个后缀配上几种不同的前面部分, 覆盖 step3-step5 的全部规则
+        String[] stems = {"", "s", "t", "r", "bat", "cont", "gener", "dis"};
+        String[] suffixes = {"ational", "tional", "enci", "anci", "izer", "bli", "alli", "entli", "eli", "ousli",
+                "ization", "ation", "ator", "alism", "iveness", "fulness", "ousness", "aliti", "iviti", "biliti",
+                "logi", "icate", "ative", "alize", "iciti", "ical", "ful", "ness", "al", "ance", "ence", "er", "ic",
+                "able", "ible", "ant", "ement", "ment", "ent", "ion", "sion", "tion", "ou", "ism", "ate", "iti", "ous",
+                "ive", "ize", "ing", "ed", "ies", "y"};
+        for (String stem : stems) {
+            for (String suffix : suffixes) {
+                counter.add(stem + suffix, 1);
+                counter.add(stem + suffix + "s", 1);
+            }
+        }
+
+        PorterStemmer porter = new PorterStemmer();
+        TrieStemmer trie = new TrieStemmer();
+        for (String word : counter.getCounts().keySet()) {
+            assertEquals(word, porter.stem(word), trie.stem(word));
+        }
+    }
+}
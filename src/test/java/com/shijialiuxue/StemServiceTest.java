@@ -0,0 +1,64 @@
+package com.shijialiuxue;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.shijialiuxue.cache.StemCache;
+import org.junit.Test;
+
+/**
+ * 本机启动服务, 通过 HTTP 求词根
+ */
+public class StemServiceTest
+{
+    @Test
+    public void shouldStemOverHttp() throws Exception
+    {
+        List<List<String>> rows = new ArrayList<>();
+        rows.add(Arrays.asList("go", "went", "gone"));
+        StemIndex families = new StemIndex();
+        families.add("running", "run", 3);
+        StemService service = new StemService(IrregularIndex.of(rows), new StemCache(100), families, 2);
+        try {
+            InetSocketAddress address = service.start(0);
+            URL url = new URL("http://" + address.getHostString() + ":" + address.getPort() + "/stem");
+            String expected = "running\trun\t\t3\n"
+                    + "went\tgo\tgo\t0\n"
+                    + "cats\tcat\t\t0\n";
+            assertEquals(expected, post(url, "Running, went; cats"));
+            assertEquals(expected, post(url, "running\nwent\ncats\n"));
+        } finally {
+            service.stop();
+        }
+    }
+
+    private static String post(URL url, String body) throws Exception
+    {
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        conn.setRequestMethod("POST");
+        conn.setDoOutput(true);
+        try (OutputStream os = conn.getOutputStream()) {
+            os.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(200, conn.getResponseCode());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream is = conn.getInputStream()) {
+            byte[] buf = new byte[1024];
+            int n;
+            while ((n = is.read(buf)) > 0) {
+                out.write(buf, 0, n);
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,102 @@
+package com.shijialiuxue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import com.shijialiuxue.util.FileUtils;
+import com.shijialiuxue.util.WordCounter;
+import org.junit.Test;
+
+/**
+ * 快照写入后按词根/单词查询, 结果与内存中的索引一致
+ */
+public class StemSnapshotTest
+{
+    @Test
+    public void shouldAnswerQueriesFromSnapshot() throws Exception
+    {
+        File reading = new File(getClass().getClassLoader().getResource("reading.txt").getPath());
+        WordCounter counter = new WordCounter();
+        FileUtils.readTxt(reading, counter);
+        ParallelStemmer stemmer = new ParallelStemmer(IrregularIndex.of(new ArrayList<>()), 2);
+        File file = File.createTempFile("snapshot", ".bin");
+        try {
+            StemIndex index = stemmer.stem(counter.getCountMap());
+            StemSnapshot.write(index.toList(), file);
+            StemSnapshot snapshot = StemSnapshot.open(file);
+
+            assertEquals(index.stemCount(), snapshot.stemCount());
+            assertEquals(index.wordCount(), snapshot.wordCount());
+            for (Node node : index.toList()) {
+                Node loaded = snapshot.find(node.getStem());
+                assertEquals(node.getFrequency(), loaded.getFrequency());
+                assertEquals(node.getFrequency(), snapshot.stemFrequency(node.getStem()));
+                assertEquals(node.getWordList().size(), loaded.getWordList().size());
+                for (int w = 0; w < node.getWordList().size(); w++) {
+                    NodeWord word = node.getWordList().get(w);
+                    assertEquals(word.getWord(), loaded.getWordList().get(w).getWord());
+                    assertEquals(word.getFrequency(), snapshot.wordFrequency(word.getWord()));
+                    assertEquals(node.getStem(), snapshot.stemOf(word.getWord()));
+                }
+            }
+            assertNull(snapshot.find("zzzzzz"));
+            assertNull(snapshot.stemOf(""));
+            assertEquals(0, snapshot.wordFrequency("zzzzzz"));
+
+            List<Node> sorted = index.toList();
+            sorted.sort(Comparator.comparing(Node::getStem));
+            assertEquals(ParallelStemmerTest.dump(sorted), ParallelStemmerTest.dump(snapshot.toList()));
+
+            //覆盖写时已经打开的快照不受影响
+            StemSnapshot.write(sorted.subList(0, 10), file);
+            assertEquals(ParallelStemmerTest.dump(sorted), ParallelStemmerTest.dump(snapshot.toList()));
+            assertEquals(10, StemSnapshot.open(file).stemCount());
+        } finally {
+            stemmer.shutdown();
+            file.delete();
+        }
+    }
+
+    @Test
+    public void shouldRejectCorruptHeader() throws Exception
+    {
+        List<Node> result = new ArrayList<>();
+        result.add(new Node("run", new NodeWord("running", 2), 2));
+        File file = File.createTempFile("snapshot", ".bin");
+        try {
+            StemSnapshot.write(result, file);
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            //blockSize, stemBlocks, wordIndexPos 依次改坏
+            for (int offset : new int[]{16, 20, 32}) {
+                byte[] corrupt = bytes.clone();
+                ByteBuffer.wrap(corrupt).putInt(offset, offset == 32 ? bytes.length : 0);
+                Files.write(file.toPath(), corrupt);
+                try {
+                    StemSnapshot.open(file);
+                    fail("offset " + offset);
+                } catch (IOException e) {
+                    //期望
+                }
+            }
+            Files.write(file.toPath(), Arrays.copyOf(bytes, 8));
+            try {
+                StemSnapshot.open(file);
+                fail();
+            } catch (IOException e) {
+                //期望
+            }
+        } finally {
+            file.delete();
+        }
+    }
+}
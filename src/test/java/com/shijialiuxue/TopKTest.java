@@ -0,0 +1,89 @@
+package com.shijialiuxue;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import com.shijialiuxue.util.CharCountMap;
+import com.shijialiuxue.util.FileUtils;
+import com.shijialiuxue.util.WordCounter;
+import org.junit.Test;
+
+/**
+ * 堆取 top-K 与整体排序后取前 K 个一致, 增量维护与读完后再取一致
+ */
+public class TopKTest
+{
+    @Test
+    public void shouldMatchFullSort() throws Exception
+    {
+        File reading = new File(getClass().getClassLoader().getResource("reading.txt").getPath());
+        WordCounter counter = new WordCounter();
+        FileUtils.readTxt(reading, counter);
+        CharCountMap counts = counter.getCountMap();
+
+        PorterStemmer stemmer = new PorterStemmer();
+        StemIndex batch = new StemIndex();
+        StemIndex tracked = new StemIndex();
+        tracked.trackTopStems(50);
+        for (int e = 0; e < counts.size(); e++) {
+            String word = counts.key(e);
+            String stem = stemmer.stem(word);
+            batch.add(word, stem, counts.count(e));
+            tracked.add(word, stem, counts.count(e));
+            //再加一遍, 让已经在堆里的词根变大
+            tracked.add(word, stem, counts.count(e));
+        }
+
+        List<Node> sorted = batch.toList();
+        sorted.sort(TopK.STEM_ORDER);
+        for (int k : new int[]{1, 10, 50, sorted.size() + 1}) {
+            List<Node> expected = sorted.subList(0, Math.min(k, sorted.size()));
+            assertEquals(stems(expected), stems(batch.topStems(k)));
+            assertEquals(stems(expected), stems(TopK.topStems(batch.toList(), k)));
+            assertEquals(stems(expected), stems(tracked.topStems(k)));
+        }
+
+        for (Node node : sorted.subList(0, 10)) {
+            List<NodeWord> words = new ArrayList<>(node.getWordList());
+            words.sort(TopK.WORD_ORDER);
+            assertEquals(words.subList(0, Math.min(2, words.size())), TopK.topWords(node, 2));
+        }
+    }
+
+    @Test
+    public void shouldSelectEntriesLikeFullSort() throws Exception
+    {
+        File reading = new File(getClass().getClassLoader().getResource("reading.txt").getPath());
+        WordCounter counter = new WordCounter();
+        FileUtils.readTxt(reading, counter);
+        CharCountMap counts = counter.getCountMap();
+
+        List<Integer> sorted = new ArrayList<>();
+        for (int e = 0; e < counts.size(); e++) {
+            if (counts.count(e) >= 2) {
+                sorted.add(e);
+            }
+        }
+        sorted.sort(Comparator.comparingInt((Integer e) -> counts.count(e)).reversed().thenComparingInt(e -> e));
+        for (int k : new int[]{0, 1, 10, 100, Integer.MAX_VALUE}) {
+            List<Integer> actual = new ArrayList<>();
+            for (int e : TopK.topEntries(counts.size(), counts::count, k, 2)) {
+                actual.add(e);
+            }
+            assertEquals(sorted.subList(0, Math.min(k, sorted.size())), actual);
+        }
+    }
+
+    private static List<String> stems(List<Node> nodes)
+    {
+        List<String> stems = new ArrayList<>();
+        for (Node node : nodes) {
+            stems.add(node.getStem());
+        }
+        return stems;
+    }
+}
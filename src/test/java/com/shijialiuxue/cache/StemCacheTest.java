@@ -0,0 +1,80 @@
+package com.shijialiuxue.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * StemCache 和两种淘汰策略
+ */
+public class StemCacheTest
+{
+    @Test
+    public void shouldCountHitsAndMisses()
+    {
+        AtomicInteger loads = new AtomicInteger();
+        StemCache cache = new StemCache(100, StemCache.LRU);
+        for (int r = 0; r < 3; r++) {
+            assertEquals("run", cache.get("running", w -> {
+                loads.incrementAndGet();
+                return "run";
+            }));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    public void shouldStayBounded()
+    {
+        StemCache cache = new StemCache(1000);
+        for (int w = 0; w < 10000; w++) {
+            cache.get("w" + w, word -> word);
+        }
+        assertTrue(cache.size() <= 1000);
+        assertEquals(10000 - cache.size(), cache.getEvictions());
+    }
+
+    @Test
+    public void lruShouldEvictLeastRecentlyUsed()
+    {
+        LruPolicy lru = new LruPolicy(2);
+        lru.put("a", "a");
+        lru.put("b", "b");
+        lru.get("a");
+        assertEquals(1, lru.put("c", "c"));
+        assertNull(lru.get("b"));
+        assertEquals("a", lru.get("a"));
+    }
+
+    @Test
+    public void tinyLfuShouldKeepHotWords()
+    {
+        TinyLfuPolicy lfu = new TinyLfuPolicy(200);
+        //100个热词反复出现, 中间夹着大量只出现一次的冷词
+        for (int w = 0; w < 10000; w++) {
+            access(lfu, "hot" + (w % 100));
+            access(lfu, "cold" + w);
+        }
+        int kept = 0;
+        for (int w = 0; w < 100; w++) {
+            if (lfu.get("hot" + w) != null) {
+                kept++;
+            }
+        }
+        assertTrue("hot words kept: " + kept, kept >= 90);
+    }
+
+    private static void access(CachePolicy policy, String word)
+    {
+        if (policy.get(word) == null) {
+            policy.put(word, word);
+        }
+    }
+}
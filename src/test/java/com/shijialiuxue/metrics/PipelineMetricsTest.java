@@ -0,0 +1,44 @@
+package com.shijialiuxue.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+/**
+ * 计时/计数在 JSON 报告和 JMX 中都能读到
+ */
+public class PipelineMetricsTest
+{
+    @Test
+    public void shouldExportToJsonAndJmx() throws Exception
+    {
+        PipelineMetrics metrics = new PipelineMetrics();
+        metrics.record(Stage.STEM, 1500);
+        metrics.record(Stage.STEM, 500);
+        metrics.time(Stage.SORT, () -> Thread.sleep(1));
+        assertEquals("done", metrics.time(Stage.WRITE, () -> "done"));
+        metrics.addTokens(42);
+        metrics.setStems(7);
+        metrics.finish();
+
+        assertEquals(2000, metrics.getStageNanos(Stage.STEM));
+        assertTrue(metrics.getStageNanos(Stage.SORT) > 0);
+        assertTrue(metrics.getStageNanos(Stage.WRITE) > 0);
+        String json = metrics.toJson();
+        assertTrue(json.contains("\"stem\": 2000"));
+        assertTrue(json.contains("\"tokens\": 42"));
+
+        metrics.register();
+        try {
+            ObjectName name = new ObjectName(PipelineMetrics.OBJECT_NAME);
+            assertEquals(7L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Stems"));
+        } finally {
+            metrics.unregister();
+        }
+    }
+}
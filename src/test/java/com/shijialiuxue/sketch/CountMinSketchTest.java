@@ -0,0 +1,58 @@
+package com.shijialiuxue.sketch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * 各行 hash 独立: hashCode 相同的 key 不会在每一行都冲突
+ */
+public class CountMinSketchTest
+{
+    @Test
+    public void shouldSeparateKeysWithEqualHashCode()
+    {
+        //"Aa" 和 "BB" 的 hashCode 相同, 拼起来的 16 个 key 的 hashCode 都相同
+        List<String> keys = new ArrayList<>();
+        for (int m = 0; m < 16; m++) {
+            StringBuilder key = new StringBuilder();
+            for (int b = 0; b < 4; b++) {
+                key.append((m >> b & 1) == 0 ? "Aa" : "BB");
+            }
+            keys.add(key.toString());
+        }
+        assertEquals(keys.get(0).hashCode(), keys.get(15).hashCode());
+
+        CountMinSketch sketch = new CountMinSketch(1024, 4);
+        for (int k = 0; k < keys.size(); k++) {
+            sketch.add(keys.get(k), k + 1);
+        }
+        for (int k = 0; k < keys.size(); k++) {
+            assertEquals(k + 1, sketch.estimate(keys.get(k)));
+        }
+    }
+
+    @Test
+    public void shouldStayWithinErrorBound()
+    {
+        CountMinSketch sketch = new CountMinSketch(0.01, 0.01);
+        int keys = 5000;
+        for (int k = 0; k < keys; k++) {
+            sketch.add("word" + k, k % 7 + 1);
+        }
+        long bound = (long) (sketch.getEpsilon() * sketch.getTotal());
+        int over = 0;
+        for (int k = 0; k < keys; k++) {
+            long error = sketch.estimate("word" + k) - (k % 7 + 1);
+            assertTrue(error >= 0);
+            if (error > bound) {
+                over++;
+            }
+        }
+        assertTrue(over <= keys * 0.01);
+    }
+}
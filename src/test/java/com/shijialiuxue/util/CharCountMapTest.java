@@ -0,0 +1,61 @@
+package com.shijialiuxue.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * CharCountMap 与 LinkedHashMap 计数对照
+ */
+public class CharCountMapTest
+{
+    @Test
+    public void shouldCountLikeHashMap() throws Exception
+    {
+        List<String> words = FileUtils.readTxt(new File(getClass().getClassLoader().getResource("reading.txt").getPath()));
+        CharCountMap counts = new CharCountMap();
+        Map<String, Long> expected = new LinkedHashMap<>();
+        for (String word : words) {
+            //单词放在一个更大的缓冲区中间
+            char[] buf = ("##" + word + "##").toCharArray();
+            counts.add(buf, 2, word.length(), 1);
+            expected.merge(word, 1L, Long::sum);
+        }
+
+        assertEquals(expected.size(), counts.size());
+        assertEquals(words.size(), counts.getTotal());
+        List<String> keys = new ArrayList<>();
+        for (int e = 0; e < counts.size(); e++) {
+            keys.add(counts.key(e));
+            assertEquals(expected.get(counts.key(e)).intValue(), counts.count(e));
+        }
+        //条目按第一次出现的顺序
+        assertEquals(new ArrayList<>(expected.keySet()), keys);
+        assertEquals(expected, new LinkedHashMap<>(counts.toMap()));
+        assertEquals(0, counts.get("no-such-word"));
+    }
+
+    @Test
+    public void shouldMerge()
+    {
+        CharCountMap a = new CharCountMap();
+        a.add("glacier", 2);
+        a.add("ice", 1);
+        CharCountMap b = new CharCountMap();
+        b.add("ice", 4);
+        b.add("melt", 3);
+        a.merge(b);
+        assertEquals(3, a.size());
+        assertEquals(2, a.get("glacier"));
+        assertEquals(5, a.get("ice"));
+        assertEquals(3, a.get("melt"));
+        assertEquals("melt", a.key(2));
+        assertEquals(10, a.getTotal());
+    }
+}
@@ -0,0 +1,71 @@
+package com.shijialiuxue.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.shijialiuxue.Node;
+import com.shijialiuxue.NodeWord;
+
+/**
+ * ExcelEventReader 读取 .xls 和 .xlsx
+ */
+public class ExcelEventReaderTest
+{
+    @Test
+    public void shouldReadXlsAndXlsx() throws Exception
+    {
+        ArrayList<Node> result = new ArrayList<>();
+        Node node = new Node("glacier", new NodeWord("glacier", 2), 1);
+        node.getWordList().add(new NodeWord("glaciers", 3));
+        result.add(node);
+        List<String> expected = Arrays.asList(
+                "0:0:stem", "0:1:word", "0:2:frequency", "0:3:frequency in total",
+                "1:0:glacier", "1:1:glacier", "2:0:glacier", "2:1:glaciers");
+
+        File xls = File.createTempFile("result", ".xls");
+        File xlsx = File.createTempFile("result", ".xlsx");
+        try {
+            FileUtils.makeExcel(result, xls);
+            assertEquals(expected, textCells(xls));
+
+            FileUtils.makeXlsx(result, xlsx);
+            //.xlsx 数字单元格也会给出
+            List<String> cells = textCells(xlsx);
+            cells.removeIf(cell -> Character.isDigit(cell.charAt(cell.length() - 1)));
+            assertEquals(expected, cells);
+        } finally {
+            xls.delete();
+            xlsx.delete();
+        }
+    }
+
+    @Test
+    public void readIrregularShouldKeepRows() throws Exception
+    {
+        //与 jxl 读取的结果相同: 行数, 每行的内容和顺序
+        File small = new File(getClass().getClassLoader().getResource("irregular1.xls").getPath());
+        assertEquals(Arrays.asList(Arrays.asList("bear", "bore"), Arrays.asList("be")),
+                FileUtils.readIrregular(small));
+
+        File file = new File(getClass().getClassLoader().getResource("irregular.xls").getPath());
+        List<List<String>> irregular = FileUtils.readIrregular(file);
+        assertEquals(361, irregular.size());
+        assertEquals(Arrays.asList("abide", "abode", "abided"), irregular.get(0));
+        assertEquals(Arrays.asList("alight", "alighted", "alit"), irregular.get(1));
+        assertEquals(Arrays.asList("grow", "grew"), irregular.get(99));
+        assertEquals(Arrays.asList("write", "wrote"), irregular.get(360));
+    }
+
+    private static List<String> textCells(File file) throws Exception
+    {
+        List<String> cells = new ArrayList<>();
+        ExcelEventReader.read(file, (row, col, text) -> cells.add(row + ":" + col + ":" + text));
+        return cells;
+    }
+}
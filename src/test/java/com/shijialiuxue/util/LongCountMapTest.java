@@ -0,0 +1,57 @@
+package com.shijialiuxue.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * LongCountMap 与 LinkedHashMap 计数对照, prune 后保持顺序
+ */
+public class LongCountMapTest
+{
+    @Test
+    public void shouldCountAndPruneLikeHashMap()
+    {
+        Random random = new Random(42);
+        LongCountMap counts = new LongCountMap();
+        Map<Long, Integer> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            //少数 key 很常见, 其余大多只出现一两次
+            long key = random.nextInt(10) == 0 ? random.nextInt(100) : random.nextLong();
+            counts.add(key, 1);
+            expected.merge(key, 1, Integer::sum);
+        }
+        assertEquals(expected.size(), counts.size());
+        assertEquals(200000, counts.getTotal());
+        assertEquals(expected, toMap(counts));
+
+        int before = counts.size();
+        int removed = counts.prune(2);
+        expected.values().removeIf(count -> count < 2);
+        assertEquals(before - removed, counts.size());
+        //大部分条目去掉了, 数组跟着缩小
+        assertEquals(counts.size(), counts.capacity());
+        assertEquals(expected, toMap(counts));
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue().intValue(), counts.get(entry.getKey()));
+        }
+        assertEquals(0, counts.get(-1L));
+
+        //prune 之后继续计数
+        counts.add(7L, 5);
+        assertEquals(expected.get(7L) + 5, counts.get(7L));
+    }
+
+    private static Map<Long, Integer> toMap(LongCountMap counts)
+    {
+        Map<Long, Integer> map = new LinkedHashMap<>();
+        for (int e = 0; e < counts.size(); e++) {
+            map.put(counts.key(e), counts.count(e));
+        }
+        return map;
+    }
+}
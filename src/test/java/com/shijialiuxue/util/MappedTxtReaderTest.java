@@ -0,0 +1,78 @@
+package com.shijialiuxue.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * MappedTxtReader 与 readTxt 的结果对照
+ */
+public class MappedTxtReaderTest
+{
+    @Test
+    public void shouldMatchReadTxtOnReadingTxt() throws Exception
+    {
+        File file = new File(getClass().getClassLoader().getResource("reading.txt").getPath());
+        List<String> expected = FileUtils.readTxt(file);
+        //块很小, 覆盖大量块边界
+        assertEquals(expected, read(file, 4096));
+        assertEquals(expected, read(file, MappedTxtReader.DEFAULT_CHUNK_SIZE));
+    }
+
+    @Test
+    public void shouldDecodeNonAscii() throws Exception
+    {
+        File file = File.createTempFile("mapped", ".txt");
+        try {
+            Files.write(file.toPath(), "naïve Café Kelvin İstanbul it's 😀ok\nÿþ".getBytes(StandardCharsets.UTF_8));
+            assertEquals(FileUtils.readTxt(file), read(file, 4));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void shouldKeepAtMostParallelismConsumers() throws Exception
+    {
+        File file = new File(getClass().getClassLoader().getResource("reading.txt").getPath());
+        AtomicInteger live = new AtomicInteger();
+        AtomicInteger maxLive = new AtomicInteger();
+        AtomicInteger chunks = new AtomicInteger();
+        MappedTxtReader.read(file, 3, 4096, () -> {
+            maxLive.accumulateAndGet(live.incrementAndGet(), Math::max);
+            return new ListConsumer();
+        }, consumer -> {
+            live.decrementAndGet();
+            chunks.incrementAndGet();
+        });
+        assertTrue(chunks.get() > 3);
+        assertEquals(0, live.get());
+        assertTrue(maxLive.get() <= 3);
+    }
+
+    private static List<String> read(File file, long chunkSize) throws Exception
+    {
+        List<String> words = new ArrayList<>();
+        MappedTxtReader.read(file, 4, chunkSize, ListConsumer::new, consumer -> words.addAll(consumer.words));
+        return words;
+    }
+
+    private static class ListConsumer implements TokenConsumer
+    {
+        private final List<String> words = new ArrayList<>();
+
+        @Override
+        public void accept(char[] buf, int off, int len)
+        {
+            words.add(new String(buf, off, len));
+        }
+    }
+}
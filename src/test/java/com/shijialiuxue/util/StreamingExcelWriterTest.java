@@ -0,0 +1,77 @@
+package com.shijialiuxue.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.junit.Test;
+
+import com.shijialiuxue.Node;
+import com.shijialiuxue.NodeWord;
+
+/**
+ * StreamingExcelWriter 写满一个 sheet 后新建 sheet
+ */
+public class StreamingExcelWriterTest
+{
+    @Test
+    public void shouldRollOverToNewSheet() throws Exception
+    {
+        ArrayList<Node> result = new ArrayList<>();
+        for (int n = 0; n < 10; n++) {
+            Node node = new Node("stem" + n, new NodeWord("word" + n, 2), 1);
+            node.getWordList().add(new NodeWord("words" + n, 3));
+            node.increment(3);
+            result.add(node);
+        }
+        //10个词根, 每个2行加1个空行, 共30行; 每个 sheet 10行 = 表头 + 9行
+        File file = File.createTempFile("result", ".xlsx");
+        try {
+            StreamingExcelWriter writer = new StreamingExcelWriter(file, 4, 10);
+            writer.write(result);
+            writer.close();
+
+            try (Workbook workbook = WorkbookFactory.create(file)) {
+                assertEquals(4, workbook.getNumberOfSheets());
+                Sheet first = workbook.getSheetAt(0);
+                assertEquals("stem", first.getRow(0).getCell(0).getStringCellValue());
+                assertEquals("word0", first.getRow(1).getCell(1).getStringCellValue());
+                assertEquals(4.0, first.getRow(2).getCell(3).getNumericCellValue(), 0);
+                Sheet second = workbook.getSheetAt(1);
+                assertEquals("result2", second.getSheetName());
+                assertEquals("frequency in total", second.getRow(0).getCell(3).getStringCellValue());
+                assertEquals("stem3", second.getRow(1).getCell(0).getStringCellValue());
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void writeResultShouldSwitchOverflowingXlsToXlsx() throws Exception
+    {
+        ArrayList<Node> result = new ArrayList<>();
+        for (int n = 0; n * 2 <= FileUtils.XLS_MAX_ROWS; n++) {
+            result.add(new Node("stem" + n, new NodeWord("word" + n, 1), 1));
+        }
+        File xls = File.createTempFile("result", ".xls");
+        File written = null;
+        try {
+            written = FileUtils.writeResult(result, xls);
+            assertEquals(xls.getName().replace(".xls", ".xlsx"), written.getName());
+            assertEquals(xls.getAbsoluteFile().getParentFile(), written.getParentFile());
+            try (Workbook workbook = WorkbookFactory.create(written)) {
+                assertEquals("stem0", workbook.getSheetAt(0).getRow(1).getCell(0).getStringCellValue());
+            }
+        } finally {
+            xls.delete();
+            if (written != null) {
+                written.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.shijialiuxue.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.shijialiuxue.Node;
+import com.shijialiuxue.NodeWord;
+
+/**
+ * TSV / JSON Lines 与直接拼接字符串的结果对照, 缓冲区很小, 编码会跨越多次写入
+ */
+public class TextResultWriterTest
+{
+    @Test
+    public void shouldWriteTsvAndJsonLines() throws Exception
+    {
+        List<Node> result = new ArrayList<>();
+        for (int n = 0; n < 2000; n++) {
+            Node node = new Node("stem" + n, new NodeWord("word" + n, n), n);
+            node.getWordList().add(new NodeWord("words" + n, n * 1000003L > Integer.MAX_VALUE ? -n : n * 1000003));
+            result.add(node);
+        }
+        //需要转义的字符和多字节 UTF-8 (含代理对)
+        result.add(new Node("na\u00efve\t\"q\"\\", new NodeWord("line\nbreak\u0001 \u6c34 \ud83c\udf0a", 1), 1));
+
+        StringBuilder tsv = new StringBuilder("stem\tword\tfrequency\tfrequency in total\n");
+        StringBuilder jsonl = new StringBuilder();
+        for (Node node : result) {
+            jsonl.append("{\"stem\":\"").append(json(node.getStem())).append("\",\"frequency\":").append(node.getFrequency())
+                    .append(",\"words\":[");
+            for (int w = 0; w < node.getWordList().size(); w++) {
+                NodeWord word = node.getWordList().get(w);
+                tsv.append(tsv(node.getStem())).append('\t').append(tsv(word.getWord())).append('\t')
+                        .append(word.getFrequency()).append('\t').append(node.getFrequency()).append('\n');
+                jsonl.append(w > 0 ? "," : "").append("{\"word\":\"").append(json(word.getWord()))
+                        .append("\",\"frequency\":").append(word.getFrequency()).append('}');
+            }
+            jsonl.append("]}\n");
+        }
+
+        File tsvFile = File.createTempFile("result", ".tsv");
+        File jsonFile = File.createTempFile("result", ".jsonl");
+        try {
+            try (TsvResultWriter writer = new TsvResultWriter(tsvFile, 16)) {
+                writer.write(result);
+            }
+            try (JsonLinesResultWriter writer = new JsonLinesResultWriter(jsonFile, 16)) {
+                writer.write(result);
+            }
+            assertEquals(tsv.toString(), new String(Files.readAllBytes(tsvFile.toPath()), StandardCharsets.UTF_8));
+            assertEquals(jsonl.toString(), new String(Files.readAllBytes(jsonFile.toPath()), StandardCharsets.UTF_8));
+        } finally {
+            tsvFile.delete();
+            jsonFile.delete();
+        }
+    }
+
+    private static String tsv(String text)
+    {
+        return text.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String json(String text)
+    {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"").replace("\t", "\\t").replace("\n", "\\n")
+                .replace("\r", "\\r").replace("\u0001", "\\u0001");
+    }
+}
@@ -0,0 +1,68 @@
+package com.shijialiuxue.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tokenizer 与原 sentence2words 的结果对照
+ */
+public class TokenizerTest
+{
+    @Test
+    public void shouldMatchSentence2Words()
+    {
+        String[] lines = {
+                "The glacier's edge, Tom'S hat and it'sgood.",
+                "Hello World -- 123 abc_def",
+                "''s '''ss don't  KELVIN \u212Aelvin",
+                "naïve café İstanbul"
+        };
+        for (String line : lines) {
+            assertEquals(line, legacy(line), tokenize(line));
+        }
+    }
+
+    @Test
+    public void shouldDropEmptyToken()
+    {
+        assertEquals(0, tokenize("  ... !!  ").size());
+        assertEquals(0, tokenize("").size());
+    }
+
+    @Test
+    public void shouldMatchSentence2WordsOnReadingTxt() throws Exception
+    {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                getClass().getClassLoader().getResourceAsStream("reading.txt"), StandardCharsets.UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                assertEquals(line, legacy(line), tokenize(line));
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static List<String> legacy(String line)
+    {
+        List<String> words = new ArrayList<>();
+        FileUtils.sentence2words(words, line);
+        words.remove("");
+        return words;
+    }
+
+    private static List<String> tokenize(String line)
+    {
+        List<String> words = new ArrayList<>();
+        new Tokenizer().tokenize(line, words);
+        return words;
+    }
+}